@@ -0,0 +1,327 @@
+package com.contentful.java.cda;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.contentful.java.cda.ResourceFactory.GSON;
+import static com.contentful.java.cda.ResourceFactory.fromArrayToItems;
+
+/**
+ * Provides the payloads the benchmarks are run against.
+ * <p>
+ * Recorded payloads are loaded from the sdk test resources, together with the `locales.json` and
+ * `content_types.json` found next to them. Synthetic payloads are named `synthetic-{count}` and
+ * generate an array of {count} entries, each linking into a chain of included entries and assets.
+ */
+final class BenchmarkPayloads {
+  static final String SYNTHETIC_PREFIX = "synthetic-";
+
+  /** How many links deep the synthetic includes are chained. */
+  static final int SYNTHETIC_INCLUDE_DEPTH = 5;
+
+  private static final String SYNTHETIC_TYPE = "node";
+
+  private BenchmarkPayloads() {
+    throw new AssertionError();
+  }
+
+  /**
+   * A payload ready to be deserialized and post processed.
+   */
+  static final class Payload {
+    final String json;
+
+    final CDAClient client;
+
+    Payload(String json, String localesJson, String contentTypesJson) {
+      this.json = json;
+      this.client = new CDAClient(
+          createCache(localesJson, contentTypesJson),
+          Runnable::run,
+          null,
+          CDAClient.builder().setSpace("benchmark"));
+    }
+
+    CDAArray deserialize() {
+      return GSON.fromJson(json, CDAArray.class);
+    }
+  }
+
+  static Payload load(String name) {
+    if (name.startsWith(SYNTHETIC_PREFIX)) {
+      final int count = Integer.parseInt(name.substring(SYNTHETIC_PREFIX.length()));
+      return new Payload(syntheticArray(count), syntheticLocales(), syntheticContentTypes());
+    }
+
+    final String folder = name.substring(0, name.lastIndexOf('/') + 1);
+    return new Payload(
+        read(name),
+        read(folder + "locales.json"),
+        read(folder + "content_types.json"));
+  }
+
+  /**
+   * Same as the private collection step of {@link ResourceFactory}, used to set up single stages.
+   */
+  static Set<CDAResource> collectResources(CDAArray array) {
+    final Set<CDAResource> resources = new LinkedHashSet<>(array.items());
+    if (array.includes != null) {
+      if (array.includes.assets != null) {
+        resources.addAll(array.includes.assets);
+      }
+      if (array.includes.entries != null) {
+        resources.addAll(array.includes.entries);
+      }
+    }
+    return resources;
+  }
+
+  private static Cache createCache(String localesJson, String contentTypesJson) {
+    final Cache cache = new Cache();
+    final List<CDALocale> locales = fromArrayToItems(GSON.fromJson(localesJson, CDAArray.class));
+    cache.setLocales(locales);
+
+    final Map<String, CDAContentType> types = new ConcurrentHashMap<>();
+    for (CDAResource resource : GSON.fromJson(contentTypesJson, CDAArray.class).items()) {
+      types.put(resource.id(), (CDAContentType) resource);
+    }
+    cache.setTypes(types);
+    return cache;
+  }
+
+  private static String read(String name) {
+    try (InputStream stream = BenchmarkPayloads.class.getClassLoader().getResourceAsStream(name)) {
+      if (stream == null) {
+        throw new IllegalArgumentException("Payload not found: " + name);
+      }
+
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        output.write(buffer, 0, read);
+      }
+      return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not read payload " + name, e);
+    }
+  }
+
+  static String syntheticLocales() {
+    final JsonArray items = new JsonArray();
+    items.add(locale("en-US", true, null));
+    items.add(locale("de-DE", false, "en-US"));
+    return GSON.toJson(array(items, new JsonArray(), new JsonArray()));
+  }
+
+  static String syntheticContentTypes() {
+    final JsonArray fields = new JsonArray();
+    fields.add(field("title", "Symbol", null));
+    fields.add(field("body", "RichText", null));
+    fields.add(field("parent", "Link", "Entry"));
+    fields.add(field("image", "Link", "Asset"));
+
+    final JsonObject children = field("children", "Array", null);
+    final JsonObject items = new JsonObject();
+    items.addProperty("type", "Link");
+    items.addProperty("linkType", "Entry");
+    children.add("items", items);
+    fields.add(children);
+
+    final JsonObject type = new JsonObject();
+    type.add("sys", sys(SYNTHETIC_TYPE, "ContentType"));
+    type.addProperty("name", "Node");
+    type.addProperty("displayField", "title");
+    type.add("fields", fields);
+
+    final JsonArray types = new JsonArray();
+    types.add(type);
+    return GSON.toJson(array(types, new JsonArray(), new JsonArray()));
+  }
+
+  /**
+   * Create an array of {@code count} entries, with one chain of included entries per ten items.
+   * <p>
+   * Every chain is {@link #SYNTHETIC_INCLUDE_DEPTH} entries long, every link in it points to the
+   * next one, so resolving an item transitively touches the whole chain.
+   */
+  static String syntheticArray(int count) {
+    final int chains = Math.max(1, count / 10);
+
+    final JsonArray assets = new JsonArray();
+    for (int i = 0; i < chains; ++i) {
+      assets.add(asset("asset-" + i));
+    }
+
+    final JsonArray includes = new JsonArray();
+    for (int chain = 0; chain < chains; ++chain) {
+      for (int depth = 0; depth < SYNTHETIC_INCLUDE_DEPTH; ++depth) {
+        final String parent = depth + 1 < SYNTHETIC_INCLUDE_DEPTH
+            ? includeId(chain, depth + 1)
+            : null;
+        includes.add(entry(includeId(chain, depth), parent, "asset-" + chain, chain));
+      }
+    }
+
+    final JsonArray items = new JsonArray();
+    for (int i = 0; i < count; ++i) {
+      final int chain = i % chains;
+      items.add(entry("item-" + i, includeId(chain, 0), "asset-" + chain, chain));
+    }
+
+    final JsonObject array = array(items, assets, includes);
+    array.addProperty("total", count);
+    array.addProperty("limit", count);
+    return GSON.toJson(array);
+  }
+
+  private static String includeId(int chain, int depth) {
+    return "include-" + chain + "-" + depth;
+  }
+
+  private static JsonObject array(JsonArray items, JsonArray assets, JsonArray entries) {
+    final JsonObject sys = new JsonObject();
+    sys.addProperty("type", "Array");
+
+    final JsonObject array = new JsonObject();
+    array.add("sys", sys);
+    array.addProperty("total", items.size());
+    array.addProperty("skip", 0);
+    array.addProperty("limit", 1000);
+    array.add("items", items);
+
+    if (assets.size() > 0 || entries.size() > 0) {
+      final JsonObject includes = new JsonObject();
+      includes.add("Asset", assets);
+      includes.add("Entry", entries);
+      array.add("includes", includes);
+    }
+    return array;
+  }
+
+  private static JsonObject entry(String id, String parent, String image, int chain) {
+    final JsonObject sys = sys(id, "Entry");
+    sys.add("contentType", link(SYNTHETIC_TYPE, "ContentType"));
+    sys.addProperty("locale", "en-US");
+
+    final JsonObject fields = new JsonObject();
+    fields.addProperty("title", "Title of " + id);
+    fields.add("body", richText(includeId(chain, SYNTHETIC_INCLUDE_DEPTH - 1)));
+    if (parent != null) {
+      fields.add("parent", link(parent, "Entry"));
+
+      final JsonArray children = new JsonArray();
+      children.add(link(parent, "Entry"));
+      children.add(link(includeId(chain, SYNTHETIC_INCLUDE_DEPTH - 1), "Entry"));
+      fields.add("children", children);
+    }
+    fields.add("image", link(image, "Asset"));
+
+    final JsonObject entry = new JsonObject();
+    entry.add("sys", sys);
+    entry.add("fields", fields);
+    return entry;
+  }
+
+  private static JsonObject asset(String id) {
+    final JsonObject sys = sys(id, "Asset");
+    sys.addProperty("locale", "en-US");
+
+    final JsonObject file = new JsonObject();
+    file.addProperty("url", "//images.example.com/" + id + ".png");
+    file.addProperty("fileName", id + ".png");
+    file.addProperty("contentType", "image/png");
+
+    final JsonObject fields = new JsonObject();
+    fields.addProperty("title", "Title of " + id);
+    fields.add("file", file);
+
+    final JsonObject asset = new JsonObject();
+    asset.add("sys", sys);
+    asset.add("fields", fields);
+    return asset;
+  }
+
+  private static JsonObject richText(String embeddedEntryId) {
+    final JsonObject target = new JsonObject();
+    target.add("target", link(embeddedEntryId, "Entry"));
+
+    final JsonObject embedded = node("embedded-entry-block");
+    embedded.add("data", target);
+
+    final JsonObject text = new JsonObject();
+    text.addProperty("nodeType", "text");
+    text.addProperty("value", "Lorem ipsum dolor sit amet.");
+    text.add("marks", new JsonArray());
+
+    final JsonObject paragraph = node("paragraph");
+    paragraph.getAsJsonArray("content").add(text);
+
+    final JsonObject document = node("document");
+    document.getAsJsonArray("content").add(paragraph);
+    document.getAsJsonArray("content").add(embedded);
+    return document;
+  }
+
+  private static JsonObject node(String type) {
+    final JsonObject node = new JsonObject();
+    node.addProperty("nodeType", type);
+    node.add("data", new JsonObject());
+    node.add("content", new JsonArray());
+    return node;
+  }
+
+  private static JsonObject locale(String code, boolean isDefault, String fallback) {
+    final JsonObject locale = new JsonObject();
+    locale.add("sys", sys(code, "Locale"));
+    locale.addProperty("code", code);
+    locale.addProperty("name", code);
+    locale.addProperty("default", isDefault);
+    if (fallback == null) {
+      locale.add("fallbackCode", JsonNull.INSTANCE);
+    } else {
+      locale.addProperty("fallbackCode", fallback);
+    }
+    return locale;
+  }
+
+  private static JsonObject field(String id, String type, String linkType) {
+    final JsonObject field = new JsonObject();
+    field.addProperty("id", id);
+    field.addProperty("name", id);
+    field.addProperty("type", type);
+    if (linkType != null) {
+      field.addProperty("linkType", linkType);
+    }
+    return field;
+  }
+
+  private static JsonObject link(String id, String linkType) {
+    final JsonObject sys = new JsonObject();
+    sys.addProperty("type", "Link");
+    sys.addProperty("linkType", linkType);
+    sys.addProperty("id", id);
+
+    final JsonObject link = new JsonObject();
+    link.add("sys", sys);
+    return link;
+  }
+
+  private static JsonObject sys(String id, String type) {
+    final JsonObject sys = new JsonObject();
+    sys.addProperty("id", id);
+    sys.addProperty("type", type);
+    return sys;
+  }
+}
@@ -0,0 +1,118 @@
+package com.contentful.java.cda;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the memory taken by the fields of localized resources, kept in {@link CompactMap}s by
+ * {@link ResourceUtils#normalizeFields} compared to one {@link HashMap} per field and resource.
+ * <p>
+ * Both benchmarks copy the same deserialized fields of {@link #RESOURCES} entries and allocate
+ * nothing but the maps they keep, so the allocated bytes per operation are the memory taken by
+ * the fields of that many entries. Values are either given in the default locale only, like for
+ * queries of one locale, or in all locales of the environment.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar FieldMapBenchmark -prof gc} and compare
+ * {@code gc.alloc.rate.norm}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldMapBenchmark {
+  static final int RESOURCES = 1000;
+
+  static final int FIELDS = 8;
+
+  /**
+   * The fields of all entries as deserialized, and the slots of the environment.
+   */
+  @State(Scope.Thread)
+  public static class FieldsState {
+    @Param({"2", "10", "50"})
+    public int locales;
+
+    @Param({"one", "all"})
+    public String values;
+
+    KeySlots fieldSlots;
+
+    KeySlots localeSlots;
+
+    List<Map<String, Object>> deserialized;
+
+    final CDAEntry entry = new CDAEntry();
+
+    final Object[] kept = new Object[RESOURCES];
+
+    @Setup(Level.Trial)
+    public void create() {
+      final List<String> fieldIds = new ArrayList<>(FIELDS);
+      for (int field = 0; field < FIELDS; ++field) {
+        fieldIds.add("field-" + field);
+      }
+      final List<String> codes = new ArrayList<>(locales);
+      for (int locale = 0; locale < locales; ++locale) {
+        codes.add("locale-" + locale);
+      }
+      fieldSlots = KeySlots.of(fieldIds);
+      localeSlots = KeySlots.of(codes);
+
+      final int localized = "one".equals(values) ? 1 : locales;
+      deserialized = new ArrayList<>(RESOURCES);
+      for (int resource = 0; resource < RESOURCES; ++resource) {
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        for (String id : fieldIds) {
+          final Map<String, Object> value = new LinkedHashMap<>();
+          for (int locale = 0; locale < localized; ++locale) {
+            value.put(codes.get(locale), id + " of " + resource);
+          }
+          fields.put(id, value);
+        }
+        deserialized.add(fields);
+      }
+    }
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public Object[] hashMaps(FieldsState state) {
+    for (int resource = 0; resource < RESOURCES; ++resource) {
+      final Map<String, Object> source = state.deserialized.get(resource);
+      final Map<String, Object> fields = new HashMap<>(source.size() * 2);
+      for (Map.Entry<String, Object> field : source.entrySet()) {
+        fields.put(field.getKey(), new HashMap<>((Map<String, Object>) field.getValue()));
+      }
+      state.kept[resource] = fields;
+    }
+    return state.kept;
+  }
+
+  @Benchmark
+  public Object[] compactMaps(FieldsState state) {
+    for (int resource = 0; resource < RESOURCES; ++resource) {
+      state.entry.fields = state.deserialized.get(resource);
+      ResourceUtils.normalizeFields(state.entry, false, state.fieldSlots, state.localeSlots);
+      state.kept[resource] = state.entry.fields;
+    }
+    return state.kept;
+  }
+}
@@ -0,0 +1,108 @@
+package com.contentful.java.cda;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link BinaryResourceCodec} with java serialization of post processed arrays.
+ * <p>
+ * The encoded sizes of both formats are printed once per trial. Decoding with the codec includes
+ * resolving links and rich text again, java serialization restores the resolved graph as is.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ResourceCodecBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceCodecBenchmark {
+
+  /**
+   * A post processed array and both of its encoded forms.
+   */
+  @State(Scope.Benchmark)
+  public static class EncodedState {
+    @Param({
+        "demo/entries.json",
+        "rich_text/simple_text_embedded.json",
+        "synthetic-1000"
+    })
+    public String payload;
+
+    final ResourceCodec codec = new BinaryResourceCodec();
+
+    CDAArray array;
+
+    byte[] binary;
+
+    byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void encode() throws IOException {
+      final BenchmarkPayloads.Payload loaded = BenchmarkPayloads.load(payload);
+      array = ResourceFactory.arrayFromJson(loaded.deserialize(), loaded.client);
+      // includes are not serializable, they are kept in the asset and entry maps anyway
+      array.includes = null;
+      binary = encodeBinary(codec, array);
+      serialized = serialize(array);
+      System.out.println();
+      System.out.println(payload + ": binary " + binary.length + " bytes, serialized "
+          + serialized.length + " bytes");
+    }
+  }
+
+  @Benchmark
+  public byte[] binaryEncode(EncodedState state) throws IOException {
+    return encodeBinary(state.codec, state.array);
+  }
+
+  @Benchmark
+  public CDAArray binaryDecode(EncodedState state) throws IOException {
+    return state.codec.decode(new ByteArrayInputStream(state.binary), CDAArray.class);
+  }
+
+  @Benchmark
+  public byte[] javaSerialize(EncodedState state) throws IOException {
+    return serialize(state.array);
+  }
+
+  @Benchmark
+  public Object javaDeserialize(EncodedState state) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream input =
+             new ObjectInputStream(new ByteArrayInputStream(state.serialized))) {
+      return input.readObject();
+    }
+  }
+
+  static byte[] encodeBinary(ResourceCodec codec, CDAArray array) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    codec.encode(array, output);
+    return output.toByteArray();
+  }
+
+  static byte[] serialize(CDAArray array) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (ObjectOutputStream stream = new ObjectOutputStream(output)) {
+      stream.writeObject(array);
+    }
+    return output.toByteArray();
+  }
+}
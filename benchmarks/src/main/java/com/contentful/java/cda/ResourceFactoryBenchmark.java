@@ -0,0 +1,117 @@
+package com.contentful.java.cda;
+
+import com.contentful.java.cda.BenchmarkPayloads.Payload;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import retrofit2.Response;
+
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ResourceFactory#array(Response, CDAClient)} end to end and each of its stages
+ * on its own, calling the same methods the client calls for every query.
+ * <p>
+ * Every stage benchmark gets a fresh array, prepared up to (excluding) the measured stage, since
+ * all stages mutate the array they work on. For the small recorded payloads the per invocation
+ * setup is in the same order of magnitude as the stage itself, so compare those numbers only
+ * relative to each other.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ResourceFactoryBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceFactoryBenchmark {
+
+  /**
+   * Which payload to run against, see {@link BenchmarkPayloads#load(String)}.
+   */
+  @State(Scope.Benchmark)
+  public static class PayloadState {
+    @Param({
+        "demo/entries.json",
+        "links/entries.json",
+        "rich_text/simple_text_embedded.json",
+        "synthetic-1000",
+        "synthetic-10000"
+    })
+    public String payload;
+
+    Payload loaded;
+
+    @Setup(Level.Trial)
+    public void load() {
+      loaded = BenchmarkPayloads.load(payload);
+    }
+  }
+
+  /**
+   * A freshly deserialized array, ready for the first post processing stage.
+   */
+  @State(Scope.Thread)
+  public static class DeserializedState {
+    CDAArray array;
+
+    Set<CDAResource> resources;
+
+    @Setup(Level.Invocation)
+    public void deserialize(PayloadState state) {
+      array = state.loaded.deserialize();
+      array.assets = new LinkedHashMap<>();
+      array.entries = new LinkedHashMap<>();
+      resources = BenchmarkPayloads.collectResources(array);
+    }
+  }
+
+  /**
+   * An array localized and mapped, ready for its entries to be processed.
+   */
+  @State(Scope.Thread)
+  public static class MappedState extends DeserializedState {
+    @Setup(Level.Invocation)
+    public void map(PayloadState state) {
+      ResourceUtils.localizeAndMapResources(resources, state.loaded.client.cache, array.assets,
+          array.entries);
+    }
+  }
+
+  @Benchmark
+  public CDAArray endToEnd(PayloadState state) {
+    return ResourceFactory.array(Response.success(state.loaded.deserialize()),
+        state.loaded.client);
+  }
+
+  @Benchmark
+  public CDAArray deserialize(PayloadState state) {
+    return state.loaded.deserialize();
+  }
+
+  @Benchmark
+  public CDAArray localizeAndMapResources(PayloadState payload, DeserializedState state) {
+    ResourceUtils.localizeAndMapResources(state.resources, payload.loaded.client.cache,
+        state.array.assets, state.array.entries);
+    return state.array;
+  }
+
+  @Benchmark
+  public CDAArray processEntries(PayloadState payload, MappedState state) {
+    ResourceFactory.processEntries(state.array, payload.loaded.client, true);
+    return state.array;
+  }
+}
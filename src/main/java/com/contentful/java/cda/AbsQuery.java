@@ -21,12 +21,12 @@ public abstract class AbsQuery<
     Resource,
     Query extends AbsQuery<Resource, Query>
     > {
-  private static final String PARAMETER_CONTENT_TYPE = "content_type";
+  static final String PARAMETER_CONTENT_TYPE = "content_type";
   private static final String PARAMETER_LOCALE = "locale";
-  private static final String PARAMETER_SELECT = "select";
-  private static final String PARAMETER_ORDER = "order";
-  private static final String PARAMETER_LIMIT = "limit";
-  private static final String PARAMETER_SKIP = "skip";
+  static final String PARAMETER_SELECT = "select";
+  static final String PARAMETER_ORDER = "order";
+  static final String PARAMETER_LIMIT = "limit";
+  static final String PARAMETER_SKIP = "skip";
   private static final String PARAMETER_INCLUDE = "include";
   private static final String PARAMETER_LINKS_TO_ENTRY = "links_to_entry";
   private static final String PARAMETER_LINKS_TO_ASSET = "links_to_asset";
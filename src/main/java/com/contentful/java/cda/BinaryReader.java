@@ -0,0 +1,151 @@
+package com.contentful.java.cda;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.contentful.java.cda.BinaryWriter.STRING_INDEX_OFFSET;
+import static com.contentful.java.cda.BinaryWriter.STRING_NEW;
+import static com.contentful.java.cda.BinaryWriter.UTF_8;
+
+/**
+ * Reads values written by {@link BinaryWriter}.
+ * <p>
+ * Malformed input results in an {@link IllegalArgumentException} or one of the runtime exceptions
+ * of {@link ByteBuffer}.
+ */
+final class BinaryReader {
+  private static final int VARINT_PAYLOAD = 0x7f;
+
+  private static final int VARINT_CONTINUE = 0x80;
+
+  private static final int VARINT_SHIFT = 7;
+
+  private final ByteBuffer in;
+
+  private final List<String> strings = new ArrayList<>();
+
+  /**
+   * @param in the buffer to read from, starting at its current position.
+   */
+  BinaryReader(ByteBuffer in) {
+    this.in = in;
+  }
+
+  int position() {
+    return in.position();
+  }
+
+  byte readByte() {
+    return in.get();
+  }
+
+  int readInt() {
+    return in.getInt();
+  }
+
+  long readVarint() {
+    long result = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += VARINT_SHIFT) {
+      final int b = in.get();
+      result |= (long) (b & VARINT_PAYLOAD) << shift;
+      if ((b & VARINT_CONTINUE) == 0) {
+        return result;
+      }
+    }
+    throw new IllegalArgumentException("Malformed variable length integer.");
+  }
+
+  int readCount() {
+    final long count = readVarint();
+    if (count < 0 || count > in.remaining()) {
+      // every element takes at least one byte
+      throw new IllegalArgumentException("Invalid count " + count + ".");
+    }
+    return (int) count;
+  }
+
+  long readSignedVarint() {
+    final long value = readVarint();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  String readString() {
+    final long length = readVarint() - 1;
+    if (length < 0) {
+      return null;
+    }
+    if (length > in.remaining()) {
+      throw new IllegalArgumentException("Invalid string length " + length + ".");
+    }
+
+    final byte[] bytes = new byte[(int) length];
+    in.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  String readInterned() {
+    final long index = readVarint();
+    if (index == 0) {
+      return null;
+    }
+    if (index == STRING_NEW) {
+      final String value = readString();
+      strings.add(value);
+      return value;
+    }
+    if (index - STRING_INDEX_OFFSET >= strings.size()) {
+      throw new IllegalArgumentException("Unknown string " + index + ".");
+    }
+    return strings.get((int) (index - STRING_INDEX_OFFSET));
+  }
+
+  Object readValue() {
+    final int type = in.get();
+    switch (type) {
+      case BinaryWriter.TYPE_NULL:
+        return null;
+      case BinaryWriter.TYPE_FALSE:
+        return Boolean.FALSE;
+      case BinaryWriter.TYPE_TRUE:
+        return Boolean.TRUE;
+      case BinaryWriter.TYPE_LONG:
+        return readSignedVarint();
+      case BinaryWriter.TYPE_DOUBLE:
+        return Double.longBitsToDouble(in.getLong());
+      case BinaryWriter.TYPE_INTEGRAL_DOUBLE:
+        return (double) readSignedVarint();
+      case BinaryWriter.TYPE_STRING:
+        return readString();
+      case BinaryWriter.TYPE_INTERNED_STRING:
+        return readInterned();
+      case BinaryWriter.TYPE_LIST:
+        return readList();
+      case BinaryWriter.TYPE_MAP:
+        return readMap();
+      default:
+        throw new IllegalArgumentException("Unknown value type " + type + ".");
+    }
+  }
+
+  private List<Object> readList() {
+    final int size = readCount();
+    final List<Object> list = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) {
+      list.add(readValue());
+    }
+    return list;
+  }
+
+  private Map<String, Object> readMap() {
+    final int size = readCount();
+    final Map<String, Object> map = new LinkedHashMap<>();
+    for (int i = 0; i < size; ++i) {
+      final String key = readInterned();
+      map.put(key, readValue());
+    }
+    return map;
+  }
+}
@@ -0,0 +1,430 @@
+package com.contentful.java.cda;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.contentful.java.cda.ResourceFactory.GSON;
+import static com.contentful.java.cda.Util.checkNotNull;
+
+/**
+ * Encodes arrays and synchronized spaces in a compact binary format.
+ * <p>
+ * Only the raw fields of assets and entries get written, using variable length integers and one
+ * table of interned field ids, locales and ids. Decoding resolves links and rich text again,
+ * using the content types written along with the entries. This is considerably smaller and faster
+ * than java serialization of the resolved resources, which writes every nested map on its own.
+ */
+public class BinaryResourceCodec implements ResourceCodec {
+  private static final int MAGIC = 0x43444142;
+
+  private static final int VERSION = 1;
+
+  private static final int KIND_ARRAY = 1;
+
+  private static final int KIND_SYNC = 2;
+
+  private static final int ITEM_ASSET = 0;
+
+  private static final int ITEM_ENTRY = 1;
+
+  /** Any other resource, i.e. content types or locales, written as json. */
+  private static final int ITEM_OTHER = 2;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final Type ERRORS_TYPE = new TypeToken<List<CDAError>>() {
+  }.getType();
+
+  @Override public void encode(ArrayResource array, OutputStream output) throws IOException {
+    checkNotNull(array, "Array must not be null.");
+    checkNotNull(output, "Output must not be null.");
+    if (!(array instanceof CDAArray) && !(array instanceof SynchronizedSpace)) {
+      throw new IllegalArgumentException("Cannot encode " + array.getClass() + ".");
+    }
+
+    final BinaryWriter out = new BinaryWriter(output);
+    out.writeInt(MAGIC);
+    out.writeVarint(VERSION);
+    out.writeVarint(array instanceof SynchronizedSpace ? KIND_SYNC : KIND_ARRAY);
+    out.writeValue(array.attrs);
+
+    if (array instanceof SynchronizedSpace) {
+      final SynchronizedSpace space = (SynchronizedSpace) array;
+      out.writeString(space.nextSyncUrl);
+      out.writeString(space.nextPageUrl);
+      out.writeValue(space.deletedAssets);
+      out.writeValue(space.deletedEntries);
+    } else {
+      final CDAArray cdaArray = (CDAArray) array;
+      out.writeSignedVarint(cdaArray.total);
+      out.writeSignedVarint(cdaArray.skip);
+      out.writeSignedVarint(cdaArray.limit);
+      out.writeString(cdaArray.getErrors() == null ? null : GSON.toJson(cdaArray.getErrors()));
+    }
+
+    final Collection<CDAAsset> assets = valuesOf(array.assets);
+    final Collection<CDAEntry> entries = valuesOf(array.entries);
+    out.writeByte(array.assets == null || array.entries == null ? 0 : 1);
+    writeFallbackLocales(out, assets, entries);
+    writeContentTypes(out, entries);
+    out.writeVarint(assets.size());
+    for (CDAAsset asset : assets) {
+      writeResource(out, asset, asset.metadata());
+    }
+    out.writeVarint(entries.size());
+    for (CDAEntry entry : entries) {
+      writeResource(out, entry, entry.metadata());
+    }
+
+    writeItems(out, array);
+    if (array instanceof CDAArray) {
+      writeIncludes(out, ((CDAArray) array).includes);
+    }
+    out.flush();
+  }
+
+  @Override public <T extends ArrayResource> T decode(InputStream input, Class<T> type)
+      throws IOException {
+    checkNotNull(input, "Input must not be null.");
+    checkNotNull(type, "Type must not be null.");
+
+    final BinaryReader in = new BinaryReader(ByteBuffer.wrap(readFully(input)));
+    try {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Input does not contain an encoded array.");
+      }
+      final long version = in.readVarint();
+      if (version != VERSION) {
+        throw new IOException("Unsupported version " + version + ".");
+      }
+
+      final long kind = in.readVarint();
+      final ArrayResource array;
+      if (kind == KIND_SYNC && type.isAssignableFrom(SynchronizedSpace.class)) {
+        array = new SynchronizedSpace();
+      } else if (kind == KIND_ARRAY && type.isAssignableFrom(CDAArray.class)) {
+        array = new CDAArray();
+      } else {
+        throw new IOException("Input does not contain a " + type.getSimpleName() + ".");
+      }
+
+      read(in, array);
+      return type.cast(array);
+    } catch (BufferUnderflowException | IllegalArgumentException | ClassCastException
+        | JsonParseException e) {
+      throw new IOException("Input is corrupted.", e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void read(BinaryReader in, ArrayResource array) {
+    array.attrs = (Map<String, Object>) in.readValue();
+    if (array instanceof SynchronizedSpace) {
+      final SynchronizedSpace space = (SynchronizedSpace) array;
+      space.nextSyncUrl = in.readString();
+      space.nextPageUrl = in.readString();
+      space.deletedAssets = toSet((List<String>) in.readValue());
+      space.deletedEntries = toSet((List<String>) in.readValue());
+    } else {
+      final CDAArray cdaArray = (CDAArray) array;
+      cdaArray.total = (int) in.readSignedVarint();
+      cdaArray.skip = (int) in.readSignedVarint();
+      cdaArray.limit = (int) in.readSignedVarint();
+      final String errors = in.readString();
+      cdaArray.setErrors(errors == null ? null : GSON.<List<CDAError>>fromJson(errors,
+          ERRORS_TYPE));
+    }
+
+    final boolean mapped = in.readByte() != 0;
+    final LocaleFallbacks fallbacks = LocaleFallbacks.of((Map<String, String>) in.readValue());
+    final Map<String, CDAContentType> types = readContentTypes(in);
+
+    final Map<String, CDAAsset> assets = new LinkedHashMap<>();
+    for (int i = in.readCount(); i > 0; --i) {
+      final CDAAsset asset = readResource(in, new CDAAsset(), fallbacks, types);
+      assets.put(asset.id(), asset);
+    }
+    final Map<String, CDAEntry> entries = new LinkedHashMap<>();
+    for (int i = in.readCount(); i > 0; --i) {
+      final CDAEntry entry = readResource(in, new CDAEntry(), fallbacks, types);
+      entries.put(entry.id(), entry);
+    }
+    if (mapped) {
+      array.assets = assets;
+      array.entries = entries;
+    }
+
+    array.items = readItems(in, assets, entries);
+    if (array instanceof CDAArray) {
+      ((CDAArray) array).includes = readIncludes(in, assets, entries);
+    } else {
+      ((SynchronizedSpace) array).linkIndex = new LinkIndex();
+    }
+
+    if (mapped) {
+      final Map<CDAContentType, FieldPlan> plans = new HashMap<>();
+      for (CDAEntry entry : entries.values()) {
+        ResourceFactory.resolveEntry(array, entry, plan(entry.contentType(), plans));
+      }
+    }
+  }
+
+  /**
+   * Write attributes, metadata and raw fields of one asset or entry.
+   *
+   * @param out      the writer to use.
+   * @param resource the resource to be written.
+   * @param metadata the metadata of the resource, if any.
+   * @throws IOException if writing failed or the fields contain anything but json values.
+   */
+  static void writeResource(BinaryWriter out, LocalizedResource resource, CDAMetadata metadata)
+      throws IOException {
+    out.writeValue(resource.attrs);
+    out.writeInterned(resource.defaultLocale);
+    out.writeString(metadata == null ? null : GSON.toJson(metadata));
+    out.writeValue(resource.rawFields == null ? resource.fields : resource.rawFields);
+  }
+
+  /**
+   * Read one asset or entry written by {@link #writeResource}, its links not resolved yet.
+   *
+   * @param in                the reader to use.
+   * @param resource          the empty asset or entry to be filled.
+   * @param fallbacks         the fallbacks of all locales, null if none were written.
+   * @param types             all content types written, by their id.
+   * @param <T>               the type of the resource.
+   * @return the given resource.
+   */
+  @SuppressWarnings("unchecked")
+  static <T extends LocalizedResource> T readResource(BinaryReader in, T resource,
+      LocaleFallbacks fallbacks, Map<String, CDAContentType> types) {
+    resource.attrs = (Map<String, Object>) in.readValue();
+    resource.defaultLocale = in.readInterned();
+    final String metadata = in.readString();
+    resource.rawFields = (Map<String, Object>) in.readValue();
+    resource.fields = resource.rawFields;
+    if (fallbacks != null) {
+      fallbacks.applyTo(resource);
+    }
+
+    final CDAMetadata parsed = metadata == null
+        ? null
+        : GSON.fromJson(metadata, CDAMetadata.class);
+    if (resource instanceof CDAEntry) {
+      final CDAEntry entry = (CDAEntry) resource;
+      entry.setMetadata(parsed);
+      entry.setContentType(types.get(ResourceUtils.getLinkId(
+          resource.getAttribute("contentType"))));
+    } else if (resource instanceof CDAAsset) {
+      ((CDAAsset) resource).setMetadata(parsed);
+    }
+    return resource;
+  }
+
+  /**
+   * Write the content types of all given entries.
+   *
+   * @param out     the writer to use.
+   * @param entries the entries to write the types of.
+   * @throws IOException if writing failed.
+   */
+  static void writeContentTypes(BinaryWriter out, Collection<CDAEntry> entries)
+      throws IOException {
+    final Map<String, CDAContentType> types = new LinkedHashMap<>();
+    for (CDAEntry entry : entries) {
+      if (entry.contentType() != null) {
+        types.put(entry.contentType().id(), entry.contentType());
+      }
+    }
+
+    out.writeVarint(types.size());
+    for (CDAContentType type : types.values()) {
+      out.writeString(GSON.toJson(type));
+    }
+  }
+
+  /**
+   * Read the types written by {@link #writeContentTypes}.
+   *
+   * @param in the reader to use.
+   * @return all types read, by their id.
+   */
+  static Map<String, CDAContentType> readContentTypes(BinaryReader in) {
+    final Map<String, CDAContentType> types = new HashMap<>();
+    for (int i = in.readCount(); i > 0; --i) {
+      final CDAContentType type =
+          (CDAContentType) GSON.fromJson(in.readString(), CDAResource.class);
+      types.put(type.id(), type);
+    }
+    return types;
+  }
+
+  /**
+   * Write the locale fallbacks shared by all given resources.
+   *
+   * @param out     the writer to use.
+   * @param assets  the assets to be written.
+   * @param entries the entries to be written.
+   * @throws IOException if writing failed.
+   */
+  static void writeFallbackLocales(BinaryWriter out, Collection<CDAAsset> assets,
+      Collection<CDAEntry> entries) throws IOException {
+    LocalizedResource localized = null;
+    if (!entries.isEmpty()) {
+      localized = entries.iterator().next();
+    } else if (!assets.isEmpty()) {
+      localized = assets.iterator().next();
+    }
+    out.writeValue(localized == null ? null : localized.fallbackLocaleMap);
+  }
+
+  /**
+   * Find the plan of the given type, compiling it on first use.
+   *
+   * @param type  the type of the entry, null for cross-space entries.
+   * @param plans the plans compiled before.
+   * @return the plan of the type.
+   */
+  static FieldPlan plan(CDAContentType type, Map<CDAContentType, FieldPlan> plans) {
+    if (type == null) {
+      return FieldPlan.EMPTY;
+    }
+
+    FieldPlan plan = plans.get(type);
+    if (plan == null) {
+      plan = FieldPlan.compile(type);
+      plans.put(type, plan);
+    }
+    return plan;
+  }
+
+  private static void writeItems(BinaryWriter out, ArrayResource array) throws IOException {
+    final List<CDAResource> items = array.items == null
+        ? Collections.<CDAResource>emptyList()
+        : array.items;
+    out.writeVarint(items.size());
+    for (CDAResource item : items) {
+      if (array.assets != null && item instanceof CDAAsset
+          && array.assets.get(item.id()) == item) {
+        out.writeByte(ITEM_ASSET);
+        out.writeInterned(item.id());
+      } else if (array.entries != null && item instanceof CDAEntry
+          && array.entries.get(item.id()) == item) {
+        out.writeByte(ITEM_ENTRY);
+        out.writeInterned(item.id());
+      } else if (item instanceof LocalizedResource) {
+        throw new IllegalArgumentException("Cannot encode " + item + ", it is not mapped.");
+      } else {
+        out.writeByte(ITEM_OTHER);
+        out.writeString(GSON.toJson(item));
+      }
+    }
+  }
+
+  private static List<CDAResource> readItems(BinaryReader in, Map<String, CDAAsset> assets,
+      Map<String, CDAEntry> entries) {
+    final int count = in.readCount();
+    final List<CDAResource> items = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      final int kind = in.readByte();
+      if (kind == ITEM_ASSET) {
+        items.add(require(assets.get(in.readInterned())));
+      } else if (kind == ITEM_ENTRY) {
+        items.add(require(entries.get(in.readInterned())));
+      } else if (kind == ITEM_OTHER) {
+        items.add(GSON.fromJson(in.readString(), CDAResource.class));
+      } else {
+        throw new IllegalArgumentException("Unknown item kind " + kind + ".");
+      }
+    }
+    return items;
+  }
+
+  private static void writeIncludes(BinaryWriter out, CDAArray.Includes includes)
+      throws IOException {
+    out.writeByte(includes == null ? 0 : 1);
+    if (includes != null) {
+      writeIds(out, includes.assets);
+      writeIds(out, includes.entries);
+    }
+  }
+
+  private static CDAArray.Includes readIncludes(BinaryReader in, Map<String, CDAAsset> assets,
+      Map<String, CDAEntry> entries) {
+    if (in.readByte() == 0) {
+      return null;
+    }
+
+    final CDAArray.Includes includes = new CDAArray.Includes();
+    includes.assets = readIds(in, assets);
+    includes.entries = readIds(in, entries);
+    return includes;
+  }
+
+  private static void writeIds(BinaryWriter out, List<? extends CDAResource> resources)
+      throws IOException {
+    if (resources == null) {
+      out.writeVarint(0);
+      return;
+    }
+
+    out.writeVarint(resources.size() + 1L);
+    for (CDAResource resource : resources) {
+      out.writeInterned(resource.id());
+    }
+  }
+
+  private static <T extends CDAResource> List<T> readIds(BinaryReader in, Map<String, T> mapped) {
+    final long count = in.readVarint() - 1;
+    if (count < 0) {
+      return null;
+    }
+
+    final List<T> resources = new ArrayList<>();
+    for (long i = 0; i < count; ++i) {
+      resources.add(require(mapped.get(in.readInterned())));
+    }
+    return resources;
+  }
+
+  private static <T> T require(T resource) {
+    if (resource == null) {
+      throw new IllegalArgumentException("Unknown resource referenced.");
+    }
+    return resource;
+  }
+
+  private static <T> Collection<T> valuesOf(Map<String, T> map) {
+    return map == null ? Collections.<T>emptyList() : map.values();
+  }
+
+  private static HashSet<String> toSet(List<String> list) {
+    return list == null ? null : new HashSet<>(list);
+  }
+
+  private static byte[] readFully(InputStream input) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    int read;
+    while ((read = input.read(buffer)) != -1) {
+      output.write(buffer, 0, read);
+    }
+    return output.toByteArray();
+  }
+}
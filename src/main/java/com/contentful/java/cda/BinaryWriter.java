@@ -0,0 +1,228 @@
+package com.contentful.java.cda;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes field values in the compact binary format read by {@link BinaryReader}.
+ * <p>
+ * Output is buffered, call {@link #flush()} once done.
+ * <p>
+ * Lengths, counts and integral numbers are written as variable length integers. Map keys and short
+ * strings (ids, locales, link types) get interned: the first occurrence is written as is, all
+ * following ones only as their index in the table of strings written before.
+ */
+final class BinaryWriter {
+  static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /** Longest string value which gets interned, longer ones are written every time. */
+  static final int MAX_INTERNED_LENGTH = 32;
+
+  static final int TYPE_NULL = 0;
+
+  static final int TYPE_FALSE = 1;
+
+  static final int TYPE_TRUE = 2;
+
+  static final int TYPE_LONG = 3;
+
+  static final int TYPE_DOUBLE = 4;
+
+  /** A double without fractional part, written like a long. */
+  static final int TYPE_INTEGRAL_DOUBLE = 5;
+
+  static final int TYPE_STRING = 6;
+
+  static final int TYPE_INTERNED_STRING = 7;
+
+  static final int TYPE_LIST = 8;
+
+  static final int TYPE_MAP = 9;
+
+  /** Interned string following as is, the first time it is written. */
+  static final int STRING_NEW = 1;
+
+  /** Offset of table indices, all values below are reserved for null and {@link #STRING_NEW}. */
+  static final int STRING_INDEX_OFFSET = 2;
+
+  private static final int VARINT_PAYLOAD = 0x7f;
+
+  private static final int VARINT_CONTINUE = 0x80;
+
+  private static final int VARINT_SHIFT = 7;
+
+  private static final int BYTE_MASK = 0xff;
+
+  private static final int BYTE_SHIFT = 8;
+
+  private static final int LONG_BYTES = 8;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final OutputStream out;
+
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+
+  private int buffered;
+
+  private final Map<String, Integer> strings = new HashMap<>();
+
+  private long written;
+
+  BinaryWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * @return number of bytes written so far.
+   */
+  long written() {
+    return written;
+  }
+
+  /**
+   * Write all buffered bytes to the stream.
+   *
+   * @throws IOException if writing failed.
+   */
+  void flush() throws IOException {
+    out.write(buffer, 0, buffered);
+    buffered = 0;
+    out.flush();
+  }
+
+  /**
+   * Forget all strings interned, so that the following values can be read on their own.
+   */
+  void resetStrings() {
+    strings.clear();
+  }
+
+  void writeByte(int value) throws IOException {
+    if (buffered == buffer.length) {
+      out.write(buffer, 0, buffered);
+      buffered = 0;
+    }
+    buffer[buffered++] = (byte) value;
+    written++;
+  }
+
+  void writeInt(int value) throws IOException {
+    for (int shift = Integer.SIZE - BYTE_SHIFT; shift >= 0; shift -= BYTE_SHIFT) {
+      writeByte((value >>> shift) & BYTE_MASK);
+    }
+  }
+
+  void writeVarint(long value) throws IOException {
+    while ((value & ~VARINT_PAYLOAD) != 0) {
+      writeByte((int) ((value & VARINT_PAYLOAD) | VARINT_CONTINUE));
+      value >>>= VARINT_SHIFT;
+    }
+    writeByte((int) value);
+  }
+
+  void writeSignedVarint(long value) throws IOException {
+    writeVarint((value << 1) ^ (value >> (Long.SIZE - 1)));
+  }
+
+  void writeString(String value) throws IOException {
+    if (value == null) {
+      writeVarint(0);
+    } else {
+      final byte[] bytes = value.getBytes(UTF_8);
+      writeVarint(bytes.length + 1L);
+      if (bytes.length > buffer.length - buffered) {
+        out.write(buffer, 0, buffered);
+        buffered = 0;
+      }
+      if (bytes.length > buffer.length) {
+        out.write(bytes);
+      } else {
+        System.arraycopy(bytes, 0, buffer, buffered, bytes.length);
+        buffered += bytes.length;
+      }
+      written += bytes.length;
+    }
+  }
+
+  void writeInterned(String value) throws IOException {
+    if (value == null) {
+      writeVarint(0);
+      return;
+    }
+
+    final Integer index = strings.get(value);
+    if (index == null) {
+      strings.put(value, strings.size());
+      writeVarint(STRING_NEW);
+      writeString(value);
+    } else {
+      writeVarint(index + STRING_INDEX_OFFSET);
+    }
+  }
+
+  /**
+   * Write a json like value: null, booleans, numbers, strings, and collections or maps of them.
+   *
+   * @param value the value to be written.
+   * @throws IOException if writing failed or the value contains anything else.
+   */
+  void writeValue(Object value) throws IOException {
+    if (value == null) {
+      writeByte(TYPE_NULL);
+    } else if (value instanceof Boolean) {
+      writeByte((Boolean) value ? TYPE_TRUE : TYPE_FALSE);
+    } else if (value instanceof Integer || value instanceof Long
+        || value instanceof Short || value instanceof Byte) {
+      writeByte(TYPE_LONG);
+      writeSignedVarint(((Number) value).longValue());
+    } else if (value instanceof Number) {
+      writeDouble(((Number) value).doubleValue());
+    } else if (value instanceof String) {
+      final String string = (String) value;
+      if (string.length() <= MAX_INTERNED_LENGTH) {
+        writeByte(TYPE_INTERNED_STRING);
+        writeInterned(string);
+      } else {
+        writeByte(TYPE_STRING);
+        writeString(string);
+      }
+    } else if (value instanceof Collection) {
+      final Collection<?> collection = (Collection<?>) value;
+      writeByte(TYPE_LIST);
+      writeVarint(collection.size());
+      for (Object item : collection) {
+        writeValue(item);
+      }
+    } else if (value instanceof Map) {
+      final Map<?, ?> map = (Map<?, ?>) value;
+      writeByte(TYPE_MAP);
+      writeVarint(map.size());
+      for (Map.Entry<?, ?> item : map.entrySet()) {
+        writeInterned(String.valueOf(item.getKey()));
+        writeValue(item.getValue());
+      }
+    } else {
+      throw new IOException("Cannot write a value of " + value.getClass() + ".");
+    }
+  }
+
+  private void writeDouble(double value) throws IOException {
+    final long integral = (long) value;
+    if (integral == value && (integral != 0 || 1 / value > 0)) {
+      // whole numbers, as all numbers parsed by gson are doubles, but -0.0 is not one of them
+      writeByte(TYPE_INTEGRAL_DOUBLE);
+      writeSignedVarint(integral);
+    } else {
+      writeByte(TYPE_DOUBLE);
+      final long bits = Double.doubleToLongBits(value);
+      for (int i = LONG_BYTES - 1; i >= 0; --i) {
+        writeByte((int) (bits >>> (i * BYTE_SHIFT)) & BYTE_MASK);
+      }
+    }
+  }
+}
@@ -19,6 +19,10 @@ public class CDAAsset extends LocalizedResource {
     return metadata;
   }
 
+  void setMetadata(CDAMetadata metadata) {
+    this.metadata = metadata;
+  }
+
   /**
    * @return title of this asset.
    */
@@ -10,9 +10,15 @@ import com.contentful.java.cda.interceptor.ContentfulUserAgentHeaderInterceptor.
 import com.contentful.java.cda.interceptor.ErrorInterceptor;
 import com.contentful.java.cda.interceptor.HeaderInterceptor;
 import com.contentful.java.cda.interceptor.LogInterceptor;
+import com.contentful.java.cda.interceptor.RateLimitInterceptor;
+import com.contentful.java.cda.interceptor.ResponseCacheInterceptor;
+import com.contentful.java.cda.interceptor.RetryInterceptor;
+import com.contentful.java.cda.interceptor.RetryPolicy;
 import com.contentful.java.cda.interceptor.UserAgentHeaderInterceptor;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.functions.Supplier;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 import okhttp3.Call;
 import okhttp3.OkHttpClient;
 import org.reactivestreams.Publisher;
@@ -29,13 +35,18 @@ import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.Base64;
 
 import static com.contentful.java.cda.Constants.ENDPOINT_PROD;
@@ -61,6 +72,8 @@ import static javax.net.ssl.TrustManagerFactory.getDefaultAlgorithm;
 public class CDAClient {
   private static final int CONTENT_TYPE_LIMIT_MAX = 1000;
   private static final int CROSS_SPACE_TOKENS_MAX = 20;
+  private static final int CONTENT_TYPE_IDS_PER_REQUEST = 100;
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
 
   final String spaceId;
 
@@ -72,6 +85,8 @@ public class CDAClient {
 
   final Cache cache;
 
+  final SingleFlight<String> cacheFlights = new SingleFlight<>();
+
   final Executor callbackExecutor;
 
   final boolean preview;
@@ -80,6 +95,23 @@ public class CDAClient {
 
   final boolean hasCrossSpaceTokens;
 
+  final int parallelResolutionThreshold;
+
+  final Executor parallelResolutionExecutor;
+
+  final ResponseCacheInterceptor responseCache;
+
+  final QueryCache queryCache;
+
+  final TransformCache transformCache;
+
+  /** Binders of the models transformed by this client, by their class. */
+  final ConcurrentMap<Class<?>, ModelBinder> modelBinders = new ConcurrentHashMap<>();
+
+  final RateLimitInterceptor rateLimiter;
+
+  final RetryInterceptor retries;
+
   CDAClient(Builder builder) {
     this(new Cache(),
             Platform.get().callbackExecutor(),
@@ -99,6 +131,29 @@ public class CDAClient {
     this.logSensitiveData = builder.logSensitiveData;
     this.hasCrossSpaceTokens = builder.crossSpaceTokens != null
         && !builder.crossSpaceTokens.isEmpty();
+    this.parallelResolutionThreshold = builder.parallelResolutionThreshold;
+    this.parallelResolutionExecutor = builder.parallelResolutionExecutor;
+    this.responseCache = builder.responseCache;
+    this.queryCache = builder.queryCache;
+    this.transformCache = builder.transformCache;
+    this.rateLimiter = builder.rateLimiter;
+    this.retries = installedRetries(builder);
+  }
+
+  /**
+   * @return the interceptor retrying requests, null if retrying is disabled or the custom call
+   * factory of the builder does not contain it.
+   */
+  private static RetryInterceptor installedRetries(Builder builder) {
+    final RetryInterceptor retries = builder.retryInterceptor();
+    if (retries == null || builder.callFactory == null) {
+      return retries;
+    }
+    // a custom call factory only retries if built by the default call factory builder
+    return builder.callFactory instanceof OkHttpClient
+        && ((OkHttpClient) builder.callFactory).interceptors().contains(retries)
+        ? retries
+        : null;
   }
 
   private void validate(Builder builder) {
@@ -241,56 +296,19 @@ public class CDAClient {
               + "less or equal to 0.");
     }
 
-    return
-            observe(CDAContentType.class)
-                    .orderBy("sys.id")
-                    .limit(limit)
-                    .all()
-                    .map(
-                            new Function<CDAArray, CDAArray>() {
-                              @Override
-                              public CDAArray apply(CDAArray array) {
-                                if (array.skip() + array.limit() < array.total()) {
-                                  return nextPage(array);
-                                } else {
-                                  return array;
-                                }
-                              }
-
-                              private CDAArray nextPage(CDAArray array) {
-                                final CDAArray nextArray = observe(CDAContentType.class)
-                                        .orderBy("sys.id")
-                                        .limit(limit)
-                                        .skip(array.skip + limit)
-                                        .all()
-                                        .map(this)
-                                        .blockingFirst();
-
-                                array.skip = nextArray.skip;
-                                array.items.addAll(nextArray.items);
-                                array.assets.putAll(nextArray.assets);
-                                array.entries.putAll(nextArray.entries);
-
-                                return array;
-                              }
-                            }
-                    )
-                    .map(new Function<CDAArray, Integer>() {
-                           @Override
-                           public Integer apply(CDAArray array) {
-                             for (CDAResource resource : array.items) {
-                               if (resource instanceof CDAContentType) {
-                                 cache.types().put(resource.id(), (CDAContentType) resource);
-                               } else {
-                                 throw new IllegalStateException(
-                                         "Requesting a list of content types should not return "
-                                                 + "any other type.");
-                               }
-                             }
-                             return array.total;
-                           }
-                         }
-                    );
+    return observe(CDAContentType.class)
+        .orderBy("sys.id")
+        .limit(limit)
+        .stream()
+        .toList()
+        .toFlowable()
+        .map(new Function<List<CDAContentType>, Integer>() {
+          @Override
+          public Integer apply(List<CDAContentType> types) {
+            cache.putTypes(types);
+            return types.size();
+          }
+        });
   }
 
   /**
@@ -454,7 +472,8 @@ public class CDAClient {
   Flowable<List<CDALocale>> cacheLocales(boolean invalidate) {
     List<CDALocale> locales = invalidate ? null : cache.locales();
     if (locales == null) {
-      return service.array(spaceId, environmentId, PATH_LOCALES, new HashMap<>())
+      return cacheFlights.run(PATH_LOCALES, service
+              .array(spaceId, environmentId, PATH_LOCALES, new HashMap<>())
               .map(new Function<Response<CDAArray>, List<CDALocale>>() {
                      @Override
                      public List<CDALocale> apply(Response<CDAArray> localesResponse) {
@@ -464,7 +483,7 @@ public class CDAClient {
                        return locales1;
                      }
                    }
-              );
+              ));
     }
     return Flowable.just(locales);
   }
@@ -472,7 +491,7 @@ public class CDAClient {
   Flowable<Map<String, CDAContentType>> cacheTypes(boolean invalidate) {
     Map<String, CDAContentType> types = invalidate ? null : cache.types();
     if (types == null) {
-      return service.array(
+      return cacheFlights.run(PATH_CONTENT_TYPES, service.array(
               spaceId,
               environmentId,
               PATH_CONTENT_TYPES,
@@ -489,26 +508,86 @@ public class CDAClient {
                 return tmp;
               }
             }
-      );
+      ));
     }
     return Flowable.just(types);
   }
 
+  /**
+   * Fetch and cache all given content types, using as few requests as possible.
+   *
+   * @param missing the ids of the types to be fetched, mapped to the id of an entry using it.
+   * @return a flowable emitting the cache, once all types got cached.
+   * @throws CDAContentTypeNotFoundException if a type does not exist and cannot belong to an
+   *                                         entry of another space.
+   */
+  Flowable<Cache> cacheTypesWithIds(final Map<String, String> missing) {
+    if (missing.isEmpty()) {
+      return Flowable.just(cache);
+    }
+
+    final List<String> ids = new ArrayList<>(missing.keySet());
+    final int requests = (ids.size() + CONTENT_TYPE_IDS_PER_REQUEST - 1)
+            / CONTENT_TYPE_IDS_PER_REQUEST;
+    return Flowable.range(0, requests)
+            .concatMap(new Function<Integer, Publisher<List<CDAContentType>>>() {
+              @Override
+              public Publisher<List<CDAContentType>> apply(Integer request) {
+                final int from = request * CONTENT_TYPE_IDS_PER_REQUEST;
+                final int to = Math.min(ids.size(), from + CONTENT_TYPE_IDS_PER_REQUEST);
+                final String joined = Util.join(ids.subList(from, to));
+
+                final Map<String, String> query = new HashMap<>();
+                query.put("sys.id[in]", joined);
+                query.put("limit", String.valueOf(CONTENT_TYPE_IDS_PER_REQUEST));
+                return cacheFlights.run(PATH_CONTENT_TYPES + "?sys.id[in]=" + joined, service
+                        .array(spaceId, environmentId, PATH_CONTENT_TYPES, query)
+                        .map(new Function<Response<CDAArray>, List<CDAContentType>>() {
+                          @Override
+                          public List<CDAContentType> apply(Response<CDAArray> response) {
+                            final List<CDAContentType> types =
+                                    fromArrayToItems(fromResponse(response));
+                            cache.putTypes(types);
+                            return types;
+                          }
+                        }));
+              }
+            })
+            .ignoreElements()
+            .andThen(Flowable.defer(new Supplier<Publisher<Cache>>() {
+              @Override
+              public Publisher<Cache> get() {
+                final Map<String, CDAContentType> types = cache.types();
+                for (Map.Entry<String, String> id : missing.entrySet()) {
+                  if ((types == null || !types.containsKey(id.getKey()))
+                          && !hasCrossSpaceTokens) {
+                    return Flowable.error(new CDAContentTypeNotFoundException(
+                            id.getValue(),
+                            CDAEntry.class,
+                            id.getKey(),
+                            new CDAResourceNotFoundException(CDAContentType.class, id.getKey())));
+                  }
+                }
+                return Flowable.just(cache);
+              }
+            }));
+  }
+
   Flowable<CDAContentType> cacheTypeWithId(String id) {
     CDAContentType contentType = cache.types().get(id);
     if (contentType == null) {
-      return observe(CDAContentType.class)
+      return cacheFlights.run(PATH_CONTENT_TYPES + "/" + id, observe(CDAContentType.class)
               .one(id)
               .map(new Function<CDAContentType, CDAContentType>() {
                      @Override
                      public CDAContentType apply(CDAContentType resource) {
                        if (resource != null) {
-                         cache.types().put(resource.id(), resource);
+                         cache.putType(resource);
                        }
                        return resource;
                      }
                    }
-              );
+              ));
     }
     return Flowable.just(contentType);
   }
@@ -523,6 +602,60 @@ public class CDAClient {
     return this;
   }
 
+  /**
+   * Returns the cache of http responses, to inspect its hit and miss counts or to clear it.
+   *
+   * @return the response cache, null if not enabled.
+   * @see Builder#setResponseCache(long)
+   */
+  public ResponseCacheInterceptor responseCache() {
+    return responseCache;
+  }
+
+  /**
+   * Returns the cache of query results, to inspect its hit and miss counts or to invalidate it.
+   *
+   * @return the query cache, null if not enabled.
+   * @see Builder#setQueryCache(long, long, TimeUnit)
+   */
+  public QueryCache queryCache() {
+    return queryCache;
+  }
+
+  /**
+   * Returns the cache of transformed entries, to inspect its hit and miss counts or to clear it.
+   *
+   * @return the transform cache, null if not enabled.
+   * @see Builder#setTransformCache(int)
+   */
+  public TransformCache transformCache() {
+    return transformCache;
+  }
+
+  /**
+   * Returns the pacer of requests, to inspect how often requests were throttled or retried.
+   *
+   * @return the rate limiter, null if not enabled.
+   * @see Builder#setRateLimit(int, int)
+   */
+  public RateLimitInterceptor rateLimiter() {
+    return rateLimiter;
+  }
+
+  /**
+   * Returns the interceptor retrying failed requests, to inspect how often requests were retried.
+   * <p>
+   * With a {@link Builder#setCallFactory(Call.Factory) custom call factory}, requests are only
+   * retried if it was created by {@link Builder#defaultCallFactoryBuilder()}, after setting the
+   * retry policy.
+   *
+   * @return the retrying interceptor, null if not enabled or not part of the custom call factory.
+   * @see Builder#setRetryPolicy(RetryPolicy)
+   */
+  public RetryInterceptor retries() {
+    return retries;
+  }
+
   static String createUserAgent() {
     final Properties properties = System.getProperties();
     return String.format("contentful.java/%s(%s %s) %s/%s",
@@ -588,6 +721,21 @@ public class CDAClient {
 
     Map<String, String> crossSpaceTokens;
 
+    int parallelResolutionThreshold;
+    Executor parallelResolutionExecutor;
+
+    ResponseCacheInterceptor responseCache;
+
+    QueryCache queryCache;
+
+    TransformCache transformCache;
+
+    RateLimitInterceptor rateLimiter;
+
+    RetryPolicy retryPolicy;
+
+    RetryInterceptor retries;
+
     private static final OkHttpClient OK_HTTP_CLIENT = new OkHttpClient();
 
     Builder() {
@@ -846,6 +994,15 @@ public class CDAClient {
       }
 
       okBuilder.addInterceptor(new ErrorInterceptor(logSensitiveData));
+      if (retryInterceptor() != null) {
+        okBuilder.addInterceptor(retryInterceptor());
+      }
+      if (responseCache != null) {
+        okBuilder.addInterceptor(responseCache);
+      }
+      if (rateLimiter != null) {
+        okBuilder.addInterceptor(rateLimiter);
+      }
 
       setLogger(okBuilder);
       useTls12IfWanted(okBuilder);
@@ -925,6 +1082,180 @@ public class CDAClient {
       return this;
     }
 
+    /**
+     * Resolve links and rich text of large arrays on multiple threads.
+     * <p>
+     * Disabled by default. Arrays and sync results with at least {@code threshold} entries get
+     * their entries resolved in chunks on the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @param threshold minimal number of entries to be resolved in parallel, zero or less
+     *                  disables parallel resolution.
+     * @return this builder for chaining.
+     * @see #setParallelResolution(int, Executor)
+     */
+    public Builder setParallelResolution(int threshold) {
+      return setParallelResolution(threshold, null);
+    }
+
+    /**
+     * Resolve links and rich text of large arrays on multiple threads of the given executor.
+     * <p>
+     * The calling thread takes part in resolving, so all entries get resolved even if the
+     * executor is busy or rejects tasks.
+     *
+     * @param threshold minimal number of entries to be resolved in parallel, zero or less
+     *                  disables parallel resolution.
+     * @param executor  the executor to resolve on, null for the common
+     *                  {@link java.util.concurrent.ForkJoinPool}.
+     * @return this builder for chaining.
+     */
+    public Builder setParallelResolution(int threshold, Executor executor) {
+      this.parallelResolutionThreshold = threshold;
+      this.parallelResolutionExecutor = executor;
+      return this;
+    }
+
+    /**
+     * Keep responses in memory and revalidate them using their {@code ETag}.
+     * <p>
+     * Disabled by default. Once enabled, repeating a request sends the {@code ETag} of the cached
+     * response, and the server only answers with headers if nothing changed. The cache is part
+     * of the {@link #defaultCallFactoryBuilder()}, so it is not used with a custom call factory
+     * unless that one got created from the default builder.
+     *
+     * @param maxBytes how many bytes of response bodies to keep at most, zero or less disables
+     *                 the cache.
+     * @return this builder for chaining.
+     * @see CDAClient#responseCache()
+     */
+    public Builder setResponseCache(long maxBytes) {
+      this.responseCache = maxBytes > 0 ? new ResponseCacheInterceptor(maxBytes) : null;
+      return this;
+    }
+
+    /**
+     * Keep the processed results of {@link FetchQuery#all()}, {@link FetchQuery#one(String)} and
+     * their observable counterparts in memory.
+     * <p>
+     * Disabled by default. Once enabled, repeating a query with the same parameters returns the
+     * same {@link CDAArray} without any request, until it expires, gets evicted or a delta sync
+     * of this client changes one of its resources. Cached arrays are shared and must not be
+     * modified.
+     *
+     * @param maxWeight how many resources to keep at most, zero or less disables the cache.
+     * @param ttl       how long to keep a result, zero or less keeps results until evicted.
+     * @param unit      the unit of the ttl.
+     * @return this builder for chaining.
+     * @see #setQueryCache(long, long, TimeUnit, boolean)
+     * @see CDAClient#queryCache()
+     */
+    public Builder setQueryCache(long maxWeight, long ttl, TimeUnit unit) {
+      return setQueryCache(maxWeight, ttl, unit, false);
+    }
+
+    /**
+     * Keep the processed results of queries in memory, optionally returning expired results.
+     * <p>
+     * With {@code staleWhileRevalidate} set, a query of an expired result returns that result
+     * right away and refreshes it on {@link Schedulers#io()}, one request per query at a time.
+     * Later queries get the refreshed result once it arrived.
+     *
+     * @param maxWeight            how many resources to keep at most, zero or less disables the
+     *                             cache.
+     * @param ttl                  how long a result stays fresh, zero or less keeps results until
+     *                             evicted.
+     * @param unit                 the unit of the ttl.
+     * @param staleWhileRevalidate true to return expired results while refreshing them.
+     * @return this builder for chaining.
+     * @see #setQueryCache(long, long, TimeUnit)
+     */
+    public Builder setQueryCache(long maxWeight, long ttl, TimeUnit unit,
+        boolean staleWhileRevalidate) {
+      this.queryCache = maxWeight > 0
+          ? new QueryCache(maxWeight, ttl, unit, staleWhileRevalidate, Schedulers.io())
+          : null;
+      return this;
+    }
+
+    /**
+     * Share the instances created by {@link TransformQuery}s between their results.
+     * <p>
+     * Disabled by default. Once enabled, transforming an entry again returns the instance created
+     * before, as long as neither the entry nor any entry or asset it links to changed its
+     * revision. Shared instances must not be modified.
+     *
+     * @param maxSize how many instances to keep at most, zero or less disables the cache.
+     * @return this builder for chaining.
+     * @see CDAClient#transformCache()
+     */
+    public Builder setTransformCache(int maxSize) {
+      this.transformCache = maxSize > 0 ? new TransformCache(maxSize) : null;
+      return this;
+    }
+
+    /**
+     * Pace requests to stay within the rate limit, and retry requests rejected by it.
+     * <p>
+     * Disabled by default. Once enabled, requests wait for their turn instead of failing with a
+     * {@link CDAHttpException} of status {@code 429}. The rate gets adjusted to the limits the
+     * server reports with every response. Like the response cache, the rate limiter is part of the
+     * {@link #defaultCallFactoryBuilder()}. With a rate limiter, {@code 429} responses are only
+     * retried by it, never by the {@link #setRetryPolicy(RetryPolicy) retry policy}.
+     *
+     * @param requestsPerSecond how many requests to send per second at most, zero or less
+     *                          disables the rate limiter.
+     * @param maxRetries        how often to repeat a request rejected by the rate limit.
+     * @return this builder for chaining.
+     * @see CDAClient#rateLimiter()
+     */
+    public Builder setRateLimit(int requestsPerSecond, int maxRetries) {
+      this.rateLimiter = requestsPerSecond > 0
+          ? new RateLimitInterceptor(requestsPerSecond, maxRetries)
+          : null;
+      this.retries = null;
+      return this;
+    }
+
+    /**
+     * Retry failed {@code GET} requests following the given policy.
+     * <p>
+     * Disabled by default. Once enabled, responses with a retryable status code and failing
+     * connections are retried with exponential backoff, and only the last failure surfaces as a
+     * {@link CDAHttpException} or {@link java.io.IOException}. Like the response cache, retrying
+     * is part of the {@link #defaultCallFactoryBuilder()}. If a
+     * {@link #setRateLimit(int, int) rate limiter} is configured, {@code 429} responses are left
+     * to it and removed from the retryable status codes of the policy.
+     *
+     * @param policy when and how often to retry, null disables retrying.
+     * @return this builder for chaining.
+     * @see RetryPolicy#defaultPolicy()
+     * @see CDAClient#retries()
+     */
+    public Builder setRetryPolicy(RetryPolicy policy) {
+      this.retryPolicy = policy;
+      this.retries = null;
+      return this;
+    }
+
+    /**
+     * @return the interceptor retrying requests, null if retrying is disabled.
+     */
+    RetryInterceptor retryInterceptor() {
+      if (retries == null && retryPolicy != null) {
+        RetryPolicy policy = retryPolicy;
+        if (rateLimiter != null
+            && policy.retryableStatusCodes().contains(HTTP_TOO_MANY_REQUESTS)) {
+          final Set<Integer> codes = new HashSet<>(policy.retryableStatusCodes());
+          codes.remove(HTTP_TOO_MANY_REQUESTS);
+          policy = policy.newBuilder()
+              .setRetryableStatusCodes(codes.toArray(new Integer[0]))
+              .build();
+        }
+        retries = new RetryInterceptor(policy);
+      }
+      return retries;
+    }
+
     /**
      * Create CDAClient, using the specified configuration options.
      *
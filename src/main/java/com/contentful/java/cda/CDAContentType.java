@@ -1,5 +1,6 @@
 package com.contentful.java.cda;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -15,6 +16,9 @@ public class CDAContentType extends CDAResource {
 
   String description;
 
+  /** Ids of all fields, shared by the field maps of all entries of this type. */
+  transient volatile KeySlots fieldSlots;
+
   /**
    * @return list of fields.
    */
@@ -22,6 +26,24 @@ public class CDAContentType extends CDAResource {
     return fields;
   }
 
+  /**
+   * @return the slots of all fields of this type, created on first use.
+   */
+  KeySlots fieldSlots() {
+    KeySlots slots = fieldSlots;
+    if (slots == null) {
+      final List<String> ids = new ArrayList<>();
+      if (fields != null) {
+        for (final CDAField field : fields) {
+          ids.add(field.id());
+        }
+      }
+      slots = KeySlots.of(ids);
+      fieldSlots = slots;
+    }
+    return slots;
+  }
+
   /**
    * @return name of this content type.
    */
@@ -1,65 +1,205 @@
 package com.contentful.java.cda;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Keeps locales and content types of one environment.
+ * <p>
+ * All state is kept in one immutable {@link Snapshot}, which gets replaced as a whole on every
+ * change. Reading never locks, and changes from concurrent requests never corrupt a map somebody
+ * else is reading: the returned collections are unmodifiable and never change afterwards.
+ */
 class Cache {
-  private List<CDALocale> locales;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
 
-  protected CDALocale defaultLocale;
+  /**
+   * One consistent state of the cache.
+   */
+  static final class Snapshot {
+    static final Snapshot EMPTY = new Snapshot(0, null, null, null, null, null);
 
-  private Map<String, CDAContentType> types;
+    /** Increases with every change of the cache. */
+    final long version;
 
-  private final Object localesLock = new Object();
+    final List<CDALocale> locales;
 
-  private final Object typesLock = new Object();
+    final CDALocale defaultLocale;
 
-  List<CDALocale> locales() {
-    return locales;
-  }
+    /** Fallbacks of the locales above, shared by all resources localized with them. */
+    final LocaleFallbacks fallbacks;
 
-  protected CDALocale defaultLocale() {
-    return defaultLocale;
-  }
+    final Map<String, CDAContentType> types;
 
-  void setLocales(List<CDALocale> locales) {
-    synchronized (localesLock) {
+    /** Plans of the types above, compiled on first use. */
+    final Map<CDAContentType, FieldPlan> plans;
+
+    Snapshot(long version, List<CDALocale> locales, CDALocale defaultLocale,
+        LocaleFallbacks fallbacks, Map<String, CDAContentType> types,
+        Map<CDAContentType, FieldPlan> plans) {
+      this.version = version;
       this.locales = locales;
+      this.defaultLocale = defaultLocale;
+      this.fallbacks = fallbacks;
+      this.types = types;
+      this.plans = plans;
+    }
 
-      updateDefaultLocale();
+    Snapshot withLocales(List<CDALocale> locales) {
+      return new Snapshot(version + 1,
+          locales == null ? null : Collections.unmodifiableList(new ArrayList<>(locales)),
+          findDefaultLocale(locales),
+          locales == null ? null : LocaleFallbacks.of(locales),
+          types,
+          plans);
+    }
+
+    Snapshot withTypes(Map<String, CDAContentType> types) {
+      return new Snapshot(version + 1,
+          locales,
+          defaultLocale,
+          fallbacks,
+          types == null ? null : Collections.unmodifiableMap(types),
+          types == null ? null : new ConcurrentHashMap<CDAContentType, FieldPlan>());
     }
-  }
 
-  void updateDefaultLocale() {
-    if (this.locales != null) {
-      for (final CDALocale locale : this.locales) {
-        if (locale.isDefaultLocale()) {
-          this.defaultLocale = locale;
+    private static CDALocale findDefaultLocale(List<CDALocale> locales) {
+      CDALocale result = null;
+      if (locales != null) {
+        for (final CDALocale locale : locales) {
+          if (locale.isDefaultLocale()) {
+            result = locale;
+          }
         }
       }
+      return result;
     }
   }
 
+  /**
+   * @return the current state of the cache, never null.
+   */
+  Snapshot snapshot() {
+    return snapshot.get();
+  }
+
+  List<CDALocale> locales() {
+    return snapshot.get().locales;
+  }
+
+  protected CDALocale defaultLocale() {
+    return snapshot.get().defaultLocale;
+  }
+
+  /**
+   * @return the fallbacks of the current locales, null if no locales are cached.
+   */
+  LocaleFallbacks fallbacks() {
+    return snapshot.get().fallbacks;
+  }
+
+  void setLocales(List<CDALocale> locales) {
+    Snapshot current;
+    Snapshot updated;
+    do {
+      current = snapshot.get();
+      updated = current.withLocales(locales);
+    } while (!snapshot.compareAndSet(current, updated));
+  }
+
   Map<String, CDAContentType> types() {
-    synchronized (typesLock) {
-      return types;
-    }
+    return snapshot.get().types;
   }
 
   void setTypes(Map<String, CDAContentType> types) {
-    synchronized (typesLock) {
-      this.types = types;
-    }
+    final Map<String, CDAContentType> copy = types == null ? null : new HashMap<>(types);
+
+    Snapshot current;
+    Snapshot updated;
+    do {
+      current = snapshot.get();
+      updated = current.withTypes(copy);
+    } while (!snapshot.compareAndSet(current, updated));
   }
 
-  void clear() {
-    synchronized (localesLock) {
-      locales = null;
-      defaultLocale = null;
+  /**
+   * Add or replace one content type, dropping the plan of the type replaced.
+   *
+   * @param type the type to be cached.
+   */
+  void putType(CDAContentType type) {
+    putTypes(Collections.singletonList(type));
+  }
+
+  /**
+   * Add or replace the given content types, dropping the plans of the types replaced.
+   * <p>
+   * Nothing is cached if no types were set before, since a partial set of types would hide all
+   * types not fetched yet.
+   *
+   * @param added the types to be cached.
+   */
+  void putTypes(Collection<CDAContentType> added) {
+    Snapshot current;
+    Snapshot updated;
+    do {
+      current = snapshot.get();
+      if (current.types == null) {
+        return;
+      }
+
+      final Map<String, CDAContentType> types = new HashMap<>(current.types);
+      final Map<CDAContentType, FieldPlan> plans = new ConcurrentHashMap<>(current.plans);
+      for (CDAContentType type : added) {
+        final CDAContentType replaced = types.put(type.id(), type);
+        if (replaced != null) {
+          plans.remove(replaced);
+        }
+      }
+
+      updated = new Snapshot(current.version + 1,
+          current.locales,
+          current.defaultLocale,
+          current.fallbacks,
+          Collections.unmodifiableMap(types),
+          plans);
+    } while (!snapshot.compareAndSet(current, updated));
+  }
+
+  /**
+   * Find the plan of processing entries of the given content type.
+   * <p>
+   * Plans are only kept for types currently cached, a type not (or no longer) cached, i.e. the
+   * type of an entry from an older sync, gets compiled on every call.
+   *
+   * @param type the content type of the entry to be processed.
+   * @return the plan of the type.
+   */
+  FieldPlan fieldPlan(CDAContentType type) {
+    final Snapshot current = snapshot.get();
+    if (current.types == null || current.types.get(type.id()) != type) {
+      return FieldPlan.compile(type);
     }
 
-    synchronized (typesLock) {
-      types = null;
+    FieldPlan plan = current.plans.get(type);
+    if (plan == null) {
+      plan = FieldPlan.compile(type);
+      current.plans.put(type, plan);
     }
+    return plan;
+  }
+
+  void clear() {
+    Snapshot current;
+    do {
+      current = snapshot.get();
+    } while (!snapshot.compareAndSet(current,
+        new Snapshot(current.version + 1, null, null, null, null, null)));
   }
 }
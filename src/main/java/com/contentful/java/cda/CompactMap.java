@@ -0,0 +1,279 @@
+package com.contentful.java.cda;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map of fields or localized values, keeping its values in an array indexed by shared
+ * {@link KeySlots}.
+ * <p>
+ * Thousands of entries of one content type repeat the same field ids and locale codes: instead of
+ * a hash table with one node per key, every map holds a single array, while the keys are stored
+ * once per content type or environment. Keys missing from the table, i.e. fields added to a
+ * content type after its table got built, are kept in an ordinary map next to the array. Values
+ * of a single locale take a table of that locale only, see {@link KeySlots#single(String)}.
+ * <p>
+ * All operations of {@link Map} are supported. Serializing writes an ordinary
+ * {@link LinkedHashMap}.
+ */
+final class CompactMap extends AbstractMap<String, Object> implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** Marks an empty slot, since null is a valid value. */
+  private static final Object ABSENT = new Object();
+
+  private final KeySlots slots;
+
+  private final Object[] values;
+
+  private Map<String, Object> overflow;
+
+  private int size;
+
+  private transient Set<Map.Entry<String, Object>> entrySet;
+
+  /**
+   * Create an empty map.
+   *
+   * @param slots the keys to be stored in the array.
+   */
+  CompactMap(KeySlots slots) {
+    this.slots = slots;
+    this.values = new Object[slots.size()];
+    Arrays.fill(values, ABSENT);
+  }
+
+  /**
+   * Create a map of the given content.
+   *
+   * @param slots  the keys to be stored in the array.
+   * @param source the keys and values to be put.
+   */
+  CompactMap(KeySlots slots, Map<String, ?> source) {
+    this(slots);
+    putAll(source);
+  }
+
+  private CompactMap(CompactMap other) {
+    this.slots = other.slots;
+    this.values = other.values.clone();
+    this.overflow = other.overflow == null ? null : new LinkedHashMap<>(other.overflow);
+    this.size = other.size;
+  }
+
+  /**
+   * Copy the given map, keeping the compact representation if it has one.
+   *
+   * @param map the map to be copied.
+   * @return a modifiable copy.
+   */
+  static Map<String, Object> copyOf(Map<String, Object> map) {
+    return map instanceof CompactMap
+        ? new CompactMap((CompactMap) map)
+        : new LinkedHashMap<>(map);
+  }
+
+  @Override public Object get(Object key) {
+    final int slot = slots.indexOf(key);
+    if (slot >= 0) {
+      final Object value = values[slot];
+      return value == ABSENT ? null : value;
+    }
+    return overflow == null ? null : overflow.get(key);
+  }
+
+  @Override public boolean containsKey(Object key) {
+    final int slot = slots.indexOf(key);
+    if (slot >= 0) {
+      return values[slot] != ABSENT;
+    }
+    return overflow != null && overflow.containsKey(key);
+  }
+
+  @Override public Object put(String key, Object value) {
+    final int slot = slots.indexOf(key);
+    if (slot >= 0) {
+      final Object previous = values[slot];
+      values[slot] = value;
+      if (previous == ABSENT) {
+        size++;
+        return null;
+      }
+      return previous;
+    }
+
+    if (overflow == null) {
+      overflow = new LinkedHashMap<>();
+    }
+    if (!overflow.containsKey(key)) {
+      size++;
+    }
+    return overflow.put(key, value);
+  }
+
+  @Override public Object remove(Object key) {
+    final int slot = slots.indexOf(key);
+    if (slot >= 0) {
+      final Object previous = values[slot];
+      if (previous == ABSENT) {
+        return null;
+      }
+      values[slot] = ABSENT;
+      size--;
+      return previous;
+    }
+
+    if (overflow == null || !overflow.containsKey(key)) {
+      return null;
+    }
+    size--;
+    return overflow.remove(key);
+  }
+
+  @Override public void clear() {
+    Arrays.fill(values, ABSENT);
+    overflow = null;
+    size = 0;
+  }
+
+  @Override public int size() {
+    return size;
+  }
+
+  @Override public Set<Map.Entry<String, Object>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+        @Override public Iterator<Map.Entry<String, Object>> iterator() {
+          return new EntryIterator();
+        }
+
+        @Override public int size() {
+          return size;
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  private Object writeReplace() {
+    return new LinkedHashMap<>(this);
+  }
+
+  /**
+   * Iterates the slots in order of the key table, followed by the overflowing keys.
+   */
+  private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+    private int next = advance(0);
+
+    private int current = -1;
+
+    private Iterator<Map.Entry<String, Object>> overflowIterator;
+
+    private boolean inOverflow;
+
+    private int advance(int from) {
+      int slot = from;
+      while (slot < values.length && values[slot] == ABSENT) {
+        slot++;
+      }
+      return slot;
+    }
+
+    @Override public boolean hasNext() {
+      if (next < values.length) {
+        return true;
+      }
+      if (overflowIterator == null) {
+        overflowIterator = overflow == null
+            ? Collections.<Map.Entry<String, Object>>emptyIterator()
+            : overflow.entrySet().iterator();
+      }
+      return overflowIterator.hasNext();
+    }
+
+    @Override public Map.Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      if (next < values.length) {
+        current = next;
+        next = advance(next + 1);
+        inOverflow = false;
+        return new SlotEntry(current);
+      }
+
+      inOverflow = true;
+      return overflowIterator.next();
+    }
+
+    @Override public void remove() {
+      if (inOverflow) {
+        overflowIterator.remove();
+        size--;
+        return;
+      }
+      if (current < 0 || values[current] == ABSENT) {
+        throw new IllegalStateException();
+      }
+      values[current] = ABSENT;
+      size--;
+    }
+  }
+
+  /**
+   * A view of one slot, writing through to the array.
+   */
+  private final class SlotEntry implements Map.Entry<String, Object> {
+    private final int slot;
+
+    SlotEntry(int slot) {
+      this.slot = slot;
+    }
+
+    @Override public String getKey() {
+      return slots.keys[slot];
+    }
+
+    @Override public Object getValue() {
+      final Object value = values[slot];
+      return value == ABSENT ? null : value;
+    }
+
+    @Override public Object setValue(Object value) {
+      final Object previous = getValue();
+      if (values[slot] == ABSENT) {
+        size++;
+      }
+      values[slot] = value;
+      return previous;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      final Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+      final Object value = getValue();
+      return getKey().equals(other.getKey())
+          && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+    }
+
+    @Override public int hashCode() {
+      final Object value = getValue();
+      return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
@@ -63,6 +63,31 @@ public class FetchQuery<T extends CDAResource> extends AbsQuery<T, FetchQuery<T>
     return (C) Callbacks.subscribeAsync(baseQuery().all(), callback, client);
   }
 
+  /**
+   * Fetch all pages of this query, up to {@code parallelism} pages at once, and merge them.
+   *
+   * @param parallelism how many pages to fetch at once at most.
+   * @return {@link CDAArray} result, containing the items of all pages.
+   * @see ObserveQuery#allPages(int)
+   */
+  public CDAArray allPages(int parallelism) {
+    return baseQuery().allPages(parallelism).blockingFirst();
+  }
+
+  /**
+   * Async fetch all pages of this query, up to {@code parallelism} pages at once, and merge them.
+   *
+   * @param parallelism how many pages to fetch at once at most.
+   * @param callback    callback.
+   * @param <C>         callback type.
+   * @return the given {@code callback} instance.
+   * @see ObserveQuery#allPages(int)
+   */
+  @SuppressWarnings("unchecked")
+  public <C extends CDACallback<CDAArray>> C allPages(int parallelism, C callback) {
+    return (C) Callbacks.subscribeAsync(baseQuery().allPages(parallelism), callback, client);
+  }
+
   private ObserveQuery<T> baseQuery() {
     return client.observe(type).where(params);
   }
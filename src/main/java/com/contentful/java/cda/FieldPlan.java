@@ -0,0 +1,83 @@
+package com.contentful.java.cda;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.contentful.java.cda.Constants.LOCALE;
+
+/**
+ * Lists the fields of a content type, which need to be post processed after an entry got
+ * deserialized: single links, arrays of links and rich text fields.
+ * <p>
+ * A plan is compiled once per content type, so that processing an entry does not need to inspect
+ * all field definitions of its content type again.
+ */
+final class FieldPlan {
+  static final FieldPlan EMPTY = new FieldPlan(
+      new LinkField[0],
+      new LinkField[0],
+      Collections.<CDAField>emptyList());
+
+  final LinkField[] links;
+
+  final LinkField[] linkArrays;
+
+  final List<CDAField> richTextFields;
+
+  private FieldPlan(LinkField[] links, LinkField[] linkArrays, List<CDAField> richTextFields) {
+    this.links = links;
+    this.linkArrays = linkArrays;
+    this.richTextFields = richTextFields;
+  }
+
+  /**
+   * Create the plan for the given content type.
+   *
+   * @param contentType the type to be inspected, can be null for cross-space entries.
+   * @return a plan for entries of this type, {@link #EMPTY} if nothing needs to be processed.
+   */
+  static FieldPlan compile(CDAContentType contentType) {
+    if (contentType == null || contentType.fields() == null) {
+      return EMPTY;
+    }
+
+    final List<LinkField> links = new ArrayList<>();
+    final List<LinkField> linkArrays = new ArrayList<>();
+    final List<CDAField> richTextFields = new ArrayList<>();
+    for (CDAField field : contentType.fields()) {
+      if (field.linkType() != null) {
+        links.add(new LinkField(field.id(), field.linkType()));
+      } else if ("Array".equals(field.type()) && "Link".equals(field.items().get("type"))) {
+        linkArrays.add(new LinkField(field.id(), (String) field.items().get("linkType")));
+      }
+
+      if ("RichText".equals(field.type())) {
+        richTextFields.add(field);
+      }
+    }
+
+    if (links.isEmpty() && linkArrays.isEmpty() && richTextFields.isEmpty()) {
+      return EMPTY;
+    }
+
+    return new FieldPlan(
+        links.toArray(new LinkField[0]),
+        linkArrays.toArray(new LinkField[0]),
+        Collections.unmodifiableList(richTextFields));
+  }
+
+  /**
+   * A field linking to other resources.
+   */
+  static final class LinkField {
+    final String id;
+
+    final CDAType linkType;
+
+    LinkField(String id, String linkType) {
+      this.id = id;
+      this.linkType = CDAType.valueOf(linkType.toUpperCase(LOCALE));
+    }
+  }
+}
@@ -0,0 +1,490 @@
+package com.contentful.java.cda;
+
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.contentful.java.cda.Util.checkNotNull;
+
+/**
+ * Stores a {@link SynchronizedSpace} in one binary file.
+ * <p>
+ * The file starts with all assets and entries, each written like {@link BinaryResourceCodec}
+ * writes them, followed by an index of their offsets, the content types of the entries and the url
+ * of the next sync. Loading copies the file into memory and only decodes that index. Assets and
+ * entries get decoded on first access, then stay in memory. Links of an entry get resolved once
+ * its fields are first accessed, only reading the resources it links to directly, as found in the
+ * latest space synced from the loaded one.
+ * <p>
+ * Saving writes a new file next to the old one and renames it once complete, so a crash while
+ * saving keeps the space saved before. No file stays open or mapped after loading, so a loaded
+ * space can be saved to the file it came from. Serializing a loaded space reads all of its
+ * resources.
+ */
+public class FileSyncStore implements SyncStore {
+  private static final int MAGIC = 0x43444153;
+
+  private static final int VERSION = 2;
+
+  /** Size of the footer pointing to the index. */
+  private static final int FOOTER_SIZE = 4;
+
+  private final File file;
+
+  /**
+   * Create a store saving to the given file.
+   *
+   * @param file the file to keep the space in, created on first save.
+   */
+  public FileSyncStore(File file) {
+    this.file = checkNotNull(file, "File must not be null.");
+  }
+
+  /**
+   * @return the file keeping the space.
+   */
+  public File file() {
+    return file;
+  }
+
+  /**
+   * Write the given space to the file.
+   * <p>
+   * Links are saved unresolved, as they were synced.
+   *
+   * @param space the result of a sync.
+   * @throws IOException if the file could not be written or the space is larger than 2GB.
+   */
+  @Override public void save(SynchronizedSpace space) throws IOException {
+    checkNotNull(space, "Space must not be null.");
+
+    final File temp = new File(file.getPath() + ".tmp");
+    final OutputStream stream = new FileOutputStream(temp);
+    try {
+      final BinaryWriter out = new BinaryWriter(stream);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+
+      final Map<String, Integer> assets = new LinkedHashMap<>();
+      for (CDAAsset asset : space.assets().values()) {
+        assets.put(asset.id(), offset(out));
+        out.resetStrings();
+        BinaryResourceCodec.writeResource(out, asset, asset.metadata());
+      }
+
+      final Map<String, Integer> entries = new LinkedHashMap<>();
+      for (CDAEntry entry : space.entries().values()) {
+        entries.put(entry.id(), offset(out));
+        out.resetStrings();
+        BinaryResourceCodec.writeResource(out, entry, entry.metadata());
+      }
+
+      final int index = offset(out);
+      out.resetStrings();
+      out.writeString(space.nextSyncUrl());
+      out.writeValue(space.attrs());
+      BinaryResourceCodec.writeFallbackLocales(out, space.assets().values(),
+          space.entries().values());
+      BinaryResourceCodec.writeContentTypes(out, space.entries().values());
+      writeOffsets(out, assets);
+      writeOffsets(out, entries);
+      out.writeInt(index);
+      offset(out);
+      out.flush();
+    } catch (IOException | RuntimeException e) {
+      stream.close();
+      temp.delete();
+      throw e;
+    }
+    stream.close();
+
+    if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+      throw new IOException("Could not replace " + file + ".");
+    }
+  }
+
+  /**
+   * Copy the file into memory and read its index.
+   *
+   * @return the space saved, its resources read on first access. Null if nothing was saved yet.
+   * @throws IOException if the file could not be read or was not written by this store.
+   */
+  @Override public SynchronizedSpace load() throws IOException {
+    if (!file.exists()) {
+      return null;
+    }
+
+    // copied instead of mapped: a mapping stays open until collected, so no later save could
+    // replace the file on Windows
+    final ByteBuffer buffer;
+    final RandomAccessFile random = new RandomAccessFile(file, "r");
+    try {
+      final FileChannel channel = random.getChannel();
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(file + " is too large to be loaded.");
+      }
+      buffer = ByteBuffer.allocate((int) channel.size());
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          throw new IOException(file + " ended while loading.");
+        }
+      }
+      buffer.flip();
+    } finally {
+      random.close();
+    }
+
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new IOException(file + " does not contain a synchronized space.");
+      }
+      final int version = buffer.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported version " + version + " of " + file + ".");
+      }
+
+      buffer.position(buffer.getInt(buffer.limit() - FOOTER_SIZE));
+      return new Loader(buffer).space;
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+        | ClassCastException | JsonParseException e) {
+      throw new IOException(file + " is corrupted.", e);
+    }
+  }
+
+  /**
+   * @param space a space returned by {@link #load()}.
+   * @return how many of its assets and entries were read so far.
+   */
+  static int readCount(SynchronizedSpace space) {
+    return ((LazyResourceMap<?>) space.entries).loader.reads;
+  }
+
+  /**
+   * Reads the resources of one loaded space, keeping track of the ones read already.
+   * <p>
+   * All reading and resolving happens while holding the lock of the loader. Resolving an entry
+   * only reads the resources it links to, so following a chain of links reads one resource per
+   * step instead of recursing through all of them.
+   * <p>
+   * Entries are shared with the spaces synced from the loaded one, so links get resolved against
+   * the latest of them, see {@link #follow(SynchronizedSpace)}.
+   */
+  static final class Loader {
+    private final ByteBuffer buffer;
+
+    private final SynchronizedSpace space = new SynchronizedSpace();
+
+    private SynchronizedSpace latest = space;
+
+    private final LocaleFallbacks fallbacks;
+
+    private final Map<String, CDAContentType> types;
+
+    private final Map<CDAContentType, FieldPlan> plans = new HashMap<>();
+
+    private int reads;
+
+    @SuppressWarnings("unchecked")
+    Loader(ByteBuffer buffer) {
+      this.buffer = buffer;
+
+      final BinaryReader in = new BinaryReader(buffer);
+      space.nextSyncUrl = in.readString();
+      space.attrs = (Map<String, Object>) in.readValue();
+      space.deletedAssets = new HashSet<>();
+      space.deletedEntries = new HashSet<>();
+      fallbacks = LocaleFallbacks.of((Map<String, String>) in.readValue());
+      types = BinaryResourceCodec.readContentTypes(in);
+
+      final Map<String, Object> assetOffsets = readOffsets(in);
+      final Map<String, Object> entryOffsets = readOffsets(in);
+      final LazyResourceMap<CDAAsset> assets = new LazyResourceMap<>(this, assetOffsets);
+      final LazyResourceMap<CDAEntry> entries = new LazyResourceMap<>(this, entryOffsets);
+      space.assets = assets;
+      space.entries = entries;
+      // ids taken from the offsets, the key set of a lazy map would read every resource
+      space.items = new LazyItems(new ArrayList<>(assetOffsets.keySet()),
+          new ArrayList<>(entryOffsets.keySet()), assets, entries);
+      space.loader = this;
+    }
+
+    /**
+     * Resolve entries read from now on against the given space.
+     *
+     * @param synced a space synced from the loaded one, all of its resources resolved.
+     */
+    synchronized void follow(SynchronizedSpace synced) {
+      latest = synced;
+    }
+
+    /**
+     * Read one resource without resolving anything.
+     */
+    LocalizedResource read(int offset, boolean entry) {
+      final ByteBuffer record = buffer.duplicate();
+      record.position(offset);
+      reads++;
+      final LocalizedResource resource = BinaryResourceCodec.readResource(new BinaryReader(record),
+          entry ? new CDAEntry() : new CDAAsset(), fallbacks, types);
+      if (entry) {
+        resource.fields = new PendingFields(this, (CDAEntry) resource);
+      }
+      return resource;
+    }
+
+    /**
+     * Resolve links and rich text of an entry read, starting from its raw fields.
+     */
+    void process(CDAEntry entry) {
+      entry.fields = entry.rawFields;
+      ResourceFactory.resolveEntry(latest, entry,
+          BinaryResourceCodec.plan(entry.contentType(), plans));
+    }
+  }
+
+  /**
+   * Fields of an entry read but not resolved yet, resolving them on first access.
+   * <p>
+   * Resolving replaces this map in the entry, so only references taken before see this map, all
+   * of them delegating to the resolved fields.
+   */
+  private static final class PendingFields extends AbstractMap<String, Object>
+      implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Loader loader;
+
+    private final transient CDAEntry entry;
+
+    private Map<String, Object> resolved;
+
+    PendingFields(Loader loader, CDAEntry entry) {
+      this.loader = loader;
+      this.entry = entry;
+    }
+
+    private Map<String, Object> resolved() {
+      synchronized (loader) {
+        if (resolved == null) {
+          loader.process(entry);
+          resolved = entry.fields;
+        }
+        return resolved;
+      }
+    }
+
+    @Override public Object get(Object key) {
+      return resolved().get(key);
+    }
+
+    @Override public boolean containsKey(Object key) {
+      return resolved().containsKey(key);
+    }
+
+    @Override public Object put(String key, Object value) {
+      return resolved().put(key, value);
+    }
+
+    @Override public Object remove(Object key) {
+      return resolved().remove(key);
+    }
+
+    @Override public int size() {
+      return resolved().size();
+    }
+
+    @Override public Set<Entry<String, Object>> entrySet() {
+      return resolved().entrySet();
+    }
+
+    private Object writeReplace() {
+      return new LinkedHashMap<>(resolved());
+    }
+  }
+
+  /**
+   * Map of the assets or entries of a loaded space, reading every resource on first access.
+   * <p>
+   * Values are either the offset of a resource not read yet, or the resource itself.
+   */
+  private static final class LazyResourceMap<T extends LocalizedResource>
+      extends AbstractMap<String, T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Loader loader;
+
+    private final transient Map<String, Object> slots;
+
+    LazyResourceMap(Loader loader, Map<String, Object> offsets) {
+      this.loader = loader;
+      this.slots = offsets;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public T get(Object key) {
+      synchronized (loader) {
+        final Object slot = slots.get(key);
+        if (!(slot instanceof Integer)) {
+          return (T) slot;
+        }
+
+        final boolean entry = loader.space.entries == this;
+        final LocalizedResource resource = loader.read((Integer) slot, entry);
+        slots.put((String) key, resource);
+        return (T) resource;
+      }
+    }
+
+    @Override public boolean containsKey(Object key) {
+      synchronized (loader) {
+        return slots.containsKey(key);
+      }
+    }
+
+    /**
+     * @return the replaced resource, null if it never got read.
+     */
+    @SuppressWarnings("unchecked")
+    @Override public T put(String key, T value) {
+      synchronized (loader) {
+        final Object replaced = slots.put(key, value);
+        return replaced instanceof Integer ? null : (T) replaced;
+      }
+    }
+
+    /**
+     * @return the removed resource, null if it never got read.
+     */
+    @SuppressWarnings("unchecked")
+    @Override public T remove(Object key) {
+      synchronized (loader) {
+        final Object removed = slots.remove(key);
+        return removed instanceof Integer ? null : (T) removed;
+      }
+    }
+
+    @Override public int size() {
+      synchronized (loader) {
+        return slots.size();
+      }
+    }
+
+    @Override public Set<Entry<String, T>> entrySet() {
+      return new AbstractSet<Entry<String, T>>() {
+        @Override public Iterator<Entry<String, T>> iterator() {
+          final Iterator<String> keys = slots.keySet().iterator();
+          return new Iterator<Entry<String, T>>() {
+            @Override public boolean hasNext() {
+              synchronized (loader) {
+                return keys.hasNext();
+              }
+            }
+
+            @Override public Entry<String, T> next() {
+              synchronized (loader) {
+                final String key = keys.next();
+                return new SimpleImmutableEntry<>(key, get(key));
+              }
+            }
+
+            @Override public void remove() {
+              synchronized (loader) {
+                keys.remove();
+              }
+            }
+          };
+        }
+
+        @Override public int size() {
+          return LazyResourceMap.this.size();
+        }
+      };
+    }
+
+    private Object writeReplace() {
+      return new HashMap<>(this);
+    }
+  }
+
+  /**
+   * Items of a loaded space: all assets followed by all entries, read on first access.
+   */
+  private static final class LazyItems extends AbstractList<CDAResource> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<String> assetIds;
+
+    private final transient List<String> entryIds;
+
+    private final transient Map<String, CDAAsset> assets;
+
+    private final transient Map<String, CDAEntry> entries;
+
+    LazyItems(List<String> assetIds, List<String> entryIds,
+        Map<String, CDAAsset> assets, Map<String, CDAEntry> entries) {
+      this.assetIds = assetIds;
+      this.entryIds = entryIds;
+      this.assets = assets;
+      this.entries = entries;
+    }
+
+    @Override public CDAResource get(int index) {
+      if (index < assetIds.size()) {
+        return assets.get(assetIds.get(index));
+      }
+      return entries.get(entryIds.get(index - assetIds.size()));
+    }
+
+    @Override public int size() {
+      return assetIds.size() + entryIds.size();
+    }
+
+    private Object writeReplace() {
+      return new ArrayList<>(this);
+    }
+  }
+
+  private static int offset(BinaryWriter out) throws IOException {
+    if (out.written() > Integer.MAX_VALUE) {
+      throw new IOException("Space is too large to be stored in one file.");
+    }
+    return (int) out.written();
+  }
+
+  private static void writeOffsets(BinaryWriter out, Map<String, Integer> offsets)
+      throws IOException {
+    out.writeVarint(offsets.size());
+    for (Map.Entry<String, Integer> offset : offsets.entrySet()) {
+      out.writeString(offset.getKey());
+      out.writeVarint(offset.getValue());
+    }
+  }
+
+  private static Map<String, Object> readOffsets(BinaryReader in) {
+    final Map<String, Object> offsets = new LinkedHashMap<>();
+    for (int i = in.readCount(); i > 0; --i) {
+      final String id = in.readString();
+      offsets.put(id, (int) in.readVarint());
+    }
+    return offsets;
+  }
+}
@@ -0,0 +1,92 @@
+package com.contentful.java.cda;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * An immutable table of keys, assigning every key a slot in the value array of a
+ * {@link CompactMap}.
+ * <p>
+ * One table is shared by all maps having the same keys: the field ids of a content type, or the
+ * locale codes of an environment.
+ */
+final class KeySlots {
+  /** Tables up to this size are searched linearly, which beats hashing for a few short keys. */
+  private static final int MAX_LINEAR_SEARCH = 8;
+
+  final String[] keys;
+
+  private final Map<String, Integer> index;
+
+  /** Tables of one key each, by slot, created on first use. */
+  private volatile KeySlots[] singles;
+
+  private KeySlots(String[] keys) {
+    this.keys = keys;
+    if (keys.length > MAX_LINEAR_SEARCH) {
+      index = new HashMap<>(keys.length * 2);
+      for (int i = 0; i < keys.length; ++i) {
+        index.put(keys[i], i);
+      }
+    } else {
+      index = null;
+    }
+  }
+
+  /**
+   * @param keys the keys, duplicates and nulls get dropped.
+   * @return a table of the given keys, in the order given.
+   */
+  static KeySlots of(Collection<String> keys) {
+    final LinkedHashSet<String> unique = new LinkedHashSet<>(keys);
+    unique.remove(null);
+    return new KeySlots(unique.toArray(new String[0]));
+  }
+
+  /**
+   * @param key the key to look up.
+   * @return the slot of the key, -1 if it is not part of this table.
+   */
+  int indexOf(Object key) {
+    if (index != null) {
+      final Integer slot = index.get(key);
+      return slot == null ? -1 : slot;
+    }
+
+    for (int i = 0; i < keys.length; ++i) {
+      if (keys[i] == key || keys[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param key the only key of a map.
+   * @return a table of just the given key, shared by all maps of this table holding one key.
+   */
+  KeySlots single(String key) {
+    final int slot = indexOf(key);
+    if (slot < 0) {
+      return new KeySlots(new String[]{key});
+    }
+
+    KeySlots[] tables = singles;
+    if (tables == null) {
+      tables = new KeySlots[keys.length];
+      singles = tables;
+    }
+    KeySlots table = tables[slot];
+    if (table == null) {
+      table = keys.length == 1 ? this : new KeySlots(new String[]{keys[slot]});
+      tables[slot] = table;
+    }
+    return table;
+  }
+
+  int size() {
+    return keys.length;
+  }
+}
@@ -0,0 +1,372 @@
+package com.contentful.java.cda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reverse index of all links between the entries and assets of a synchronized space.
+ * <p>
+ * For every linked resource id the index knows which entries link to it, through which field and
+ * locale. Links are taken from the raw fields, so links to resources not (yet) part of the space
+ * are indexed as well. Entries get (re)indexed whenever their links get resolved, so a delta sync
+ * finds all entries to be resolved again without looking at any other entry.
+ * <p>
+ * The index of a delta sync only records the entries reindexed by it, on top of the index of the
+ * previous space, see {@link #next()}. Links of entries reindexed in a later layer hide their
+ * links in the layers below.
+ * <p>
+ * The index can be updated from multiple threads resolving different entries at once.
+ */
+public final class LinkIndex {
+  private final ConcurrentMap<String, Set<Link>> incoming = new ConcurrentHashMap<>();
+
+  /** Links of every entry indexed in this layer, empty if it has none (anymore). */
+  private final ConcurrentMap<String, List<Link>> outgoing = new ConcurrentHashMap<>();
+
+  /** The index this one records changes to, null if it holds all links itself. */
+  private final LinkIndex parent;
+
+  /** How many syncs the entries of this layer got reindexed by. */
+  private final int weight;
+
+  LinkIndex() {
+    this(null, 0);
+  }
+
+  private LinkIndex(LinkIndex parent, int weight) {
+    this.parent = parent;
+    this.weight = weight;
+  }
+
+  /**
+   * One link of an entry field to another resource.
+   */
+  public static final class Link {
+    private final String entryId;
+
+    private final String field;
+
+    private final String locale;
+
+    private final String targetId;
+
+    Link(String entryId, String field, String locale, String targetId) {
+      this.entryId = entryId;
+      this.field = field;
+      this.locale = locale;
+      this.targetId = targetId;
+    }
+
+    /**
+     * @return id of the entry containing this link.
+     */
+    public String entryId() {
+      return entryId;
+    }
+
+    /**
+     * @return id of the field containing this link.
+     */
+    public String field() {
+      return field;
+    }
+
+    /**
+     * @return locale of the field value containing this link.
+     */
+    public String locale() {
+      return locale;
+    }
+
+    /**
+     * @return id of the asset or entry linked to.
+     */
+    public String targetId() {
+      return targetId;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Link)) {
+        return false;
+      }
+      final Link link = (Link) o;
+      return entryId.equals(link.entryId)
+          && field.equals(link.field)
+          && locale.equals(link.locale)
+          && targetId.equals(link.targetId);
+    }
+
+    @Override public int hashCode() {
+      return Arrays.hashCode(new Object[]{entryId, field, locale, targetId});
+    }
+
+    @Override public String toString() {
+      return "Link { "
+          + "entryId = " + entryId + ", "
+          + "field = " + field + ", "
+          + "locale = " + locale + ", "
+          + "targetId = " + targetId + " "
+          + "}";
+    }
+  }
+
+  /**
+   * Create an index of all given entries.
+   *
+   * @param entries the entries to be indexed, their raw fields set.
+   * @param cache   the cache providing the plans of the entries content types.
+   * @return the new index.
+   */
+  static LinkIndex build(Collection<CDAEntry> entries, Cache cache) {
+    final LinkIndex index = new LinkIndex();
+    for (CDAEntry entry : entries) {
+      index.update(entry, ResourceUtils.fieldPlan(entry.contentType(), cache));
+    }
+    return index;
+  }
+
+  /**
+   * Start recording the changes of a delta sync.
+   * <p>
+   * Like {@link OverlayMap#over(Map)}, layers get folded into the new one the way a binary
+   * counter carries, and all of them into one plain index once they outweigh the index below.
+   *
+   * @return an index of the same links, to be updated without changing this one.
+   */
+  LinkIndex next() {
+    LinkIndex below = this;
+    final List<LinkIndex> folded = new ArrayList<>();
+    int weight = 1;
+    while (below.parent != null && below.weight <= weight) {
+      folded.add(below);
+      weight += below.weight;
+      below = below.parent;
+    }
+
+    final Map<String, List<Link>> changes = new HashMap<>();
+    for (int i = folded.size() - 1; i >= 0; --i) {
+      changes.putAll(folded.get(i).outgoing);
+    }
+    if (below.parent == null && changes.size() * 2 > below.outgoing.size()) {
+      below = flatten(below, changes);
+      changes.clear();
+      weight = 1;
+    }
+
+    final LinkIndex next = new LinkIndex(below, weight);
+    for (Map.Entry<String, List<Link>> links : changes.entrySet()) {
+      next.outgoing.put(links.getKey(), links.getValue());
+      next.link(links.getValue());
+    }
+    return next;
+  }
+
+  /**
+   * @return one index of all links of the given index and the changes to it.
+   */
+  private static LinkIndex flatten(LinkIndex index, Map<String, List<Link>> changes) {
+    final LinkIndex flat = new LinkIndex();
+    for (Map.Entry<String, List<Link>> links : index.outgoing.entrySet()) {
+      if (!changes.containsKey(links.getKey())) {
+        flat.outgoing.put(links.getKey(), links.getValue());
+        flat.link(links.getValue());
+      }
+    }
+    for (Map.Entry<String, List<Link>> links : changes.entrySet()) {
+      if (!links.getValue().isEmpty()) {
+        flat.outgoing.put(links.getKey(), links.getValue());
+        flat.link(links.getValue());
+      }
+    }
+    return flat;
+  }
+
+  /**
+   * @param id the id of an asset or entry.
+   * @return all links to the given resource, empty if nothing links to it.
+   */
+  public Set<Link> linksTo(String id) {
+    final Set<Link> links = collectLinksTo(id);
+    if (links.isEmpty()) {
+      return Collections.emptySet();
+    }
+    return Collections.unmodifiableSet(links);
+  }
+
+  /**
+   * @param id the id of an asset or entry.
+   * @return the ids of all entries linking to the given resource, empty if none does.
+   */
+  public Set<String> entriesLinkingTo(String id) {
+    final Set<Link> links = collectLinksTo(id);
+    if (links.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    final Set<String> result = new LinkedHashSet<>();
+    for (Link link : links) {
+      result.add(link.entryId);
+    }
+    return Collections.unmodifiableSet(result);
+  }
+
+  private Set<Link> collectLinksTo(String id) {
+    final Set<Link> result = new LinkedHashSet<>();
+    for (LinkIndex layer = this; layer != null; layer = layer.parent) {
+      final Set<Link> links = layer.incoming.get(id);
+      if (links != null) {
+        for (Link link : links) {
+          if (!reindexedAbove(layer, link.entryId)) {
+            result.add(link);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private boolean reindexedAbove(LinkIndex layer, String entryId) {
+    for (LinkIndex above = this; above != layer; above = above.parent) {
+      if (above.outgoing.containsKey(entryId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<Link> outgoing(String entryId) {
+    for (LinkIndex layer = this; layer != null; layer = layer.parent) {
+      final List<Link> links = layer.outgoing.get(entryId);
+      if (links != null) {
+        return links;
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Replace all links indexed for the given entry with the links of its current raw fields.
+   *
+   * @param entry the entry to be indexed.
+   * @param plan  the plan of the entries content type, naming the fields which can hold links.
+   */
+  void update(CDAEntry entry, FieldPlan plan) {
+    final List<Link> links = new ArrayList<>();
+    if (entry.rawFields != null) {
+      for (FieldPlan.LinkField field : plan.links) {
+        collect(entry, field.id, links);
+      }
+      for (FieldPlan.LinkField field : plan.linkArrays) {
+        collect(entry, field.id, links);
+      }
+      for (CDAField field : plan.richTextFields) {
+        collect(entry, field.id(), links);
+      }
+    }
+
+    final List<Link> previous;
+    if (parent == null) {
+      previous = links.isEmpty()
+          ? outgoing.remove(entry.id())
+          : outgoing.put(entry.id(), links);
+    } else if (!outgoing.containsKey(entry.id()) && links.equals(parent.outgoing(entry.id()))) {
+      // unchanged, i.e. an entry of a previous sync resolved again
+      return;
+    } else {
+      previous = outgoing.put(entry.id(), links);
+    }
+    unlink(previous);
+    link(links);
+  }
+
+  /**
+   * Drop all links of the given entry, i.e. after it got deleted.
+   *
+   * @param entryId the id of the entry.
+   */
+  void remove(String entryId) {
+    if (parent == null) {
+      unlink(outgoing.remove(entryId));
+    } else {
+      unlink(outgoing.put(entryId, Collections.<Link>emptyList()));
+    }
+  }
+
+  private void link(List<Link> links) {
+    for (Link link : links) {
+      Set<Link> set = incoming.get(link.targetId);
+      if (set == null) {
+        final Set<Link> created = Collections.newSetFromMap(new ConcurrentHashMap<Link, Boolean>());
+        set = incoming.putIfAbsent(link.targetId, created);
+        if (set == null) {
+          set = created;
+        }
+      }
+      set.add(link);
+    }
+  }
+
+  private void unlink(List<Link> links) {
+    if (links == null) {
+      return;
+    }
+    for (Link link : links) {
+      final Set<Link> set = incoming.get(link.targetId);
+      if (set != null) {
+        set.remove(link);
+      }
+    }
+  }
+
+  private static void collect(CDAEntry entry, String field, List<Link> links) {
+    final Object value = entry.rawFields.get(field);
+    if (!(value instanceof Map)) {
+      return;
+    }
+
+    final Set<String> targets = new LinkedHashSet<>();
+    for (Map.Entry<?, ?> localized : ((Map<?, ?>) value).entrySet()) {
+      targets.clear();
+      collectTargets(localized.getValue(), targets);
+      for (String target : targets) {
+        links.add(new Link(entry.id(), field, String.valueOf(localized.getKey()), target));
+      }
+    }
+  }
+
+  private static void collectTargets(Object value, Set<String> targets) {
+    if (value instanceof CDAResource) {
+      // already resolved
+      targets.add(((CDAResource) value).id());
+    } else if (value instanceof Map) {
+      final Map<?, ?> map = (Map<?, ?>) value;
+      final Object sys = map.get("sys");
+      if (sys instanceof Map && "Link".equals(((Map<?, ?>) sys).get("type"))) {
+        final Object id = ((Map<?, ?>) sys).get("id");
+        if (id instanceof String) {
+          targets.add((String) id);
+        }
+        return;
+      }
+      for (Object child : map.values()) {
+        collectTargets(child, targets);
+      }
+    } else if (value instanceof Collection) {
+      for (Object child : (Collection<?>) value) {
+        collectTargets(child, targets);
+      }
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.contentful.java.cda;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fallbacks and slots of all locales of an environment.
+ * <p>
+ * Built once per version of the locales in the {@link Cache} and shared by all resources
+ * localized with them, so none of the maps may be changed.
+ */
+final class LocaleFallbacks {
+  /** The fallback of every locale having one, by locale code. */
+  final Map<String, String> map;
+
+  /** The locale followed by all of its fallbacks in order, by locale code. */
+  final Map<String, String[]> chains;
+
+  /** The codes of all locales, shared by the localized values of all fields. */
+  final KeySlots slots;
+
+  private LocaleFallbacks(Map<String, String> map, Collection<String> codes) {
+    this.map = Collections.unmodifiableMap(map);
+
+    final Map<String, String[]> chains = new HashMap<>(codes.size());
+    for (final String code : codes) {
+      final List<String> chain = new ArrayList<>();
+      // stop at cycles, which would otherwise never find a missing value
+      for (String locale = code; locale != null && !chain.contains(locale);
+          locale = map.get(locale)) {
+        chain.add(locale);
+      }
+      chains.put(code, chain.toArray(new String[0]));
+    }
+    this.chains = Collections.unmodifiableMap(chains);
+    this.slots = KeySlots.of(codes);
+  }
+
+  /**
+   * @param locales all locales of the environment.
+   * @return the fallbacks of the given locales.
+   */
+  static LocaleFallbacks of(List<CDALocale> locales) {
+    final Map<String, String> map = new HashMap<>(locales.size());
+    final List<String> codes = new ArrayList<>(locales.size());
+    for (final CDALocale locale : locales) {
+      codes.add(locale.code());
+      final String fallback = locale.fallbackLocaleCode();
+      if (fallback != null && !"".equals(fallback)) {
+        map.put(locale.code(), fallback);
+      }
+    }
+    return new LocaleFallbacks(map, codes);
+  }
+
+  /**
+   * @param map the fallback of every locale having one, as written with a resource.
+   * @return the fallbacks of the locales in the map, null if the map is null.
+   */
+  static LocaleFallbacks of(Map<String, String> map) {
+    if (map == null) {
+      return null;
+    }
+    // locales without a fallback, like the default one, are only known as fallbacks of others
+    final Set<String> codes = new LinkedHashSet<>(map.keySet());
+    codes.addAll(map.values());
+    return new LocaleFallbacks(new HashMap<>(map), codes);
+  }
+
+  /**
+   * Let the given resource use these fallbacks.
+   *
+   * @param resource the asset or entry to be localized.
+   */
+  void applyTo(LocalizedResource resource) {
+    resource.fallbackLocaleMap = map;
+    resource.fallbackLocaleChains = chains;
+  }
+}
@@ -37,12 +37,22 @@ public abstract class LocalizedResource extends CDAResource {
         return null;
       }
 
-      final T localized = value.get(locale);
-      if (localized != null) {
-        return localized;
-      } else {
-        return getFieldForFallbackLocale(value, fallbackLocaleMap.get(locale));
+      if (fallbackLocaleChains == null && fallbackLocaleMap != null) {
+        // i.e. deserialized, having been written without chains
+        fallbackLocaleChains = LocaleFallbacks.of(fallbackLocaleMap).chains;
       }
+      final String[] chain = fallbackLocaleChains == null ? null : fallbackLocaleChains.get(locale);
+      if (chain == null) {
+        return value.get(locale);
+      }
+
+      for (final String candidate : chain) {
+        final T localized = value.get(candidate);
+        if (localized != null) {
+          return localized;
+        }
+      }
+      return null;
     }
   }
 
@@ -50,6 +60,9 @@ public abstract class LocalizedResource extends CDAResource {
 
   Map<String, String> fallbackLocaleMap;
 
+  /** Every locale followed by its fallbacks in order, shared by all resources. */
+  Map<String, String[]> fallbackLocaleChains;
+
   Map<String, Object> fields;
 
   Map<String, Object> rawFields;
@@ -99,9 +112,32 @@ public abstract class LocalizedResource extends CDAResource {
    * @param key    the key of the field to be updated.
    * @param value  the value of the field to be used.
    */
-  @SuppressWarnings("unchecked")
   public void setField(String locale, String key, Object value) {
-    ((Map<String, Object>) fields.get(key)).put(locale, value);
+    detachField(key).put(locale, value);
+  }
+
+  /**
+   * Make sure the locale map of the given field can be changed without changing the raw fields.
+   * <p>
+   * Raw fields share all maps with the fields until they get changed: only the first change of a
+   * field copies its locale map (and the map of all fields, if still shared).
+   *
+   * @param key the key of the field to be changed.
+   * @return the locale map of the field, safe to be updated, null if the field does not exist.
+   */
+  @SuppressWarnings("unchecked")
+  Map<String, Object> detachField(String key) {
+    Map<String, Object> value = (Map<String, Object>) fields.get(key);
+    if (rawFields == null || value == null || value != rawFields.get(key)) {
+      return value;
+    }
+
+    if (fields == rawFields) {
+      fields = CompactMap.copyOf(rawFields);
+    }
+    value = CompactMap.copyOf(value);
+    fields.put(key, value);
+    return value;
   }
 
   /**
@@ -0,0 +1,194 @@
+package com.contentful.java.cda;
+
+import com.contentful.java.cda.TransformQuery.ContentfulEntryModel;
+import com.contentful.java.cda.TransformQuery.ContentfulField;
+import com.contentful.java.cda.TransformQuery.ContentfulMetadata;
+import com.contentful.java.cda.TransformQuery.ContentfulSystemField;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates and fills instances of one class annotated with {@link ContentfulEntryModel}.
+ * <p>
+ * The annotations, fields and constructor of a class get looked up and made accessible once per
+ * class and client, transforming an entry then only creates the instance and sets its fields.
+ * Binders are kept by the client instead of statically, so model classes and their class loaders
+ * are not pinned for the lifetime of the process.
+ */
+final class ModelBinder {
+
+  /**
+   * Where the value of a bound field comes from.
+   */
+  enum Source {
+    FIELD,
+    SYSTEM_FIELD,
+    METADATA
+  }
+
+  /**
+   * One annotated field of the model.
+   */
+  static final class Binding {
+    final Source source;
+
+    final Field field;
+
+    /** Name of the field or attribute in Contentful. */
+    final String key;
+
+    /** Locale of the field, empty for the default locale. */
+    final String locale;
+
+    /** True if the field is declared in the superclass of the model. */
+    final boolean inherited;
+
+    Binding(Source source, Field field, String key, String locale, boolean inherited) {
+      this.source = source;
+      this.field = field;
+      this.key = key;
+      this.locale = locale;
+      this.inherited = inherited;
+    }
+  }
+
+  final Class<?> type;
+
+  final String contentTypeId;
+
+  final List<Binding> bindings;
+
+  /** Models referenced by fields of the class itself, directly or as collection elements. */
+  final List<Class<?>> referencedModels;
+
+  private final Constructor<?> constructor;
+
+  private ModelBinder(Class<?> type, ContentfulEntryModel model) throws NoSuchMethodException {
+    this.type = type;
+    this.contentTypeId = model.value();
+    this.constructor = type.getDeclaredConstructor();
+    this.constructor.setAccessible(true);
+
+    final List<Binding> bindings = new ArrayList<>();
+    bind(type.getDeclaredFields(), false, bindings);
+    if (type.getSuperclass() != null) {
+      bind(type.getSuperclass().getDeclaredFields(), true, bindings);
+    }
+    this.bindings = Collections.unmodifiableList(bindings);
+
+    final List<Class<?>> referenced = new ArrayList<>();
+    for (final Field field : type.getDeclaredFields()) {
+      final Class<?> fieldType = Collection.class.isAssignableFrom(field.getType())
+          ? elementType(field)
+          : field.getType();
+      if (fieldType != null && fieldType.getAnnotation(ContentfulEntryModel.class) != null) {
+        referenced.add(fieldType);
+      }
+    }
+    this.referencedModels = Collections.unmodifiableList(referenced);
+  }
+
+  /**
+   * Find the binder of the given model class, creating it on first use.
+   *
+   * @param type    the model class.
+   * @param binders the binders created so far, by their class.
+   * @return the binder of the class.
+   * @throws IllegalArgumentException if the class is not annotated or has no constructor without
+   *                                  parameters.
+   */
+  static ModelBinder of(Class<?> type, ConcurrentMap<Class<?>, ModelBinder> binders) {
+    ModelBinder binder = binders.get(type);
+    if (binder != null) {
+      return binder;
+    }
+
+    final ContentfulEntryModel model = type.getAnnotation(ContentfulEntryModel.class);
+    if (model == null) {
+      throw new IllegalArgumentException("Cannot transform a class without ContentfulEntryModel "
+          + "annotation.");
+    }
+    try {
+      binder = new ModelBinder(type, model);
+    } catch (NoSuchMethodException | SecurityException e) {
+      throw new IllegalArgumentException("Cannot create new instance of custom model.", e);
+    }
+
+    final ModelBinder existing = binders.putIfAbsent(type, binder);
+    return existing == null ? binder : existing;
+  }
+
+  /**
+   * @return a new, empty instance of the model.
+   * @throws IllegalStateException if the constructor fails.
+   */
+  Object newInstance() {
+    try {
+      return constructor.newInstance();
+    } catch (Exception e) {
+      throw new IllegalStateException("Cannot create new instance of "
+          + type.getCanonicalName() + ".", e);
+    }
+  }
+
+  private static void bind(Field[] fields, boolean inherited, List<Binding> bindings) {
+    for (final Field field : fields) {
+      final ContentfulField annotation = field.getAnnotation(ContentfulField.class);
+      if (annotation != null) {
+        field.setAccessible(true);
+        bindings.add(new Binding(Source.FIELD, field,
+            annotation.value().isEmpty() ? field.getName() : annotation.value(),
+            annotation.locale(), inherited));
+        continue;
+      }
+
+      final ContentfulSystemField systemField = field.getAnnotation(ContentfulSystemField.class);
+      if (systemField != null) {
+        field.setAccessible(true);
+        bindings.add(new Binding(Source.SYSTEM_FIELD, field,
+            systemField.value().isEmpty() ? field.getName() : systemField.value(),
+            "", inherited));
+        continue;
+      }
+
+      final ContentfulMetadata metadata = field.getAnnotation(ContentfulMetadata.class);
+      if (metadata != null) {
+        field.setAccessible(true);
+        bindings.add(new Binding(Source.METADATA, field, metadata.value(), "", inherited));
+      }
+    }
+  }
+
+  /**
+   * @return the class of the elements of a collection field, null if it is not declared.
+   */
+  private static Class<?> elementType(Field field) {
+    final Type generic = field.getGenericType();
+    if (!(generic instanceof ParameterizedType)) {
+      return null;
+    }
+
+    final Type[] arguments = ((ParameterizedType) generic).getActualTypeArguments();
+    if (arguments.length != 1) {
+      return null;
+    }
+
+    Type element = arguments[0];
+    if (element instanceof WildcardType) {
+      element = ((WildcardType) element).getUpperBounds()[0];
+    }
+    if (element instanceof ParameterizedType) {
+      element = ((ParameterizedType) element).getRawType();
+    }
+    return element instanceof Class ? (Class<?>) element : null;
+  }
+}
@@ -1,10 +1,26 @@
 package com.contentful.java.cda;
 
+import io.reactivex.rxjava3.core.Emitter;
 import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.flowables.ConnectableFlowable;
+import io.reactivex.rxjava3.functions.BiFunction;
+import io.reactivex.rxjava3.functions.Consumer;
 import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.functions.Supplier;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 import org.reactivestreams.Publisher;
 import retrofit2.Response;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 import static com.contentful.java.cda.CDAType.LOCALE;
 import static com.contentful.java.cda.CDAType.TAG;
 import static com.contentful.java.cda.CDAType.ASSET;
@@ -21,6 +37,9 @@ import static com.contentful.java.cda.Util.typeForClass;
  * {@link Flowable#observeOn(io.reactivex.Scheduler)} to control that.
  */
 public class ObserveQuery<T extends CDAResource> extends AbsQuery<T, ObserveQuery<T>> {
+  /** Page size of the Delivery API, if no limit is given. */
+  private static final int DEFAULT_PAGE_SIZE = 100;
+
   ObserveQuery(Class<T> type, CDAClient client) {
     super(type, client);
   }
@@ -67,7 +86,7 @@ public class ObserveQuery<T extends CDAResource> extends AbsQuery<T, ObserveQuer
     if (CONTENTTYPE.equals(typeForClass(type))) {
       flowable = flowable.map(t -> {
         if (t != null) {
-          client.cache.types().put(t.id(), (CDAContentType) t);
+          client.cache.putType((CDAContentType) t);
         }
         return t;
       });
@@ -92,6 +111,16 @@ public class ObserveQuery<T extends CDAResource> extends AbsQuery<T, ObserveQuer
    * @return {@link Flowable} instance.
    */
   public Flowable<CDAArray> all() {
+    final QueryCache queryCache = client.queryCache;
+    if (queryCache == null) {
+      return fetchAll();
+    }
+
+    final String key = QueryCache.key(client.spaceId, client.environmentId, path(), params);
+    return queryCache.query(key, path(), params.get(PARAMETER_CONTENT_TYPE), fetchAll());
+  }
+
+  private Flowable<CDAArray> fetchAll() {
     return client.cacheAll(false)
         .flatMap(
             new Function<Cache, Publisher<Response<CDAArray>>>() {
@@ -100,11 +129,285 @@ public class ObserveQuery<T extends CDAResource> extends AbsQuery<T, ObserveQuer
                 return client.service.array(client.spaceId, client.environmentId, path(), params);
               }
             }
-        ).map(new Function<Response<CDAArray>, CDAArray>() {
+        ).flatMap(new Function<Response<CDAArray>, Publisher<CDAArray>>() {
+          @Override
+          public Publisher<CDAArray> apply(Response<CDAArray> response) {
+            final CDAArray array = response.body();
+            return client
+                .cacheTypesWithIds(ResourceFactory.missingContentTypeIds(array, client.cache))
+                .map(new Function<Cache, CDAArray>() {
+                  @Override
+                  public CDAArray apply(Cache cache) {
+                    return ResourceFactory.array(array, client, false);
+                  }
+                });
+          }
+        });
+  }
+
+  /**
+   * Observe all resources matching this query, one by one, across all pages.
+   * <p>
+   * Same as {@link #stream(int)} with a prefetch of one page.
+   *
+   * @return {@link Flowable} instance.
+   */
+  public Flowable<T> stream() {
+    return stream(1);
+  }
+
+  /**
+   * Observe all resources matching this query, one by one, across all pages.
+   * <p>
+   * Pages are requested as the subscriber requests resources, starting at the given
+   * {@link #skip(int)} and using the given {@link #limit(int)} as page size. Results are ordered
+   * by {@code sys.id} unless ordered otherwise, so no resource is skipped or repeated between
+   * pages.
+   * <p>
+   * Without prefetching, every page is fetched on the subscribing thread once the previous one
+   * was consumed. A prefetch of {@code n} fetches up to {@code n} pages ahead on
+   * {@link Schedulers#io()}, while the current one is being processed. Links of every page are
+   * resolved with the includes of that page only.
+   *
+   * @param prefetch how many pages to fetch ahead of the one being consumed, zero to fetch
+   *                 every page on demand.
+   * @return {@link Flowable} instance.
+   * @throws IllegalArgumentException if prefetch is negative.
+   */
+  public Flowable<T> stream(final int prefetch) {
+    if (prefetch < 0) {
+      throw new IllegalArgumentException("Prefetch of " + prefetch + " is negative.");
+    }
+
+    final Map<String, String> query = pagedParams();
+    return Flowable.generate(
+        new Supplier<PageCursor>() {
+          @Override
+          public PageCursor get() {
+            return new PageCursor(query, prefetch);
+          }
+        },
+        new BiFunction<PageCursor, Emitter<T>, PageCursor>() {
+          @Override
+          public PageCursor apply(PageCursor cursor, Emitter<T> emitter) {
+            final T next = cursor.next();
+            if (next == null) {
+              emitter.onComplete();
+            } else {
+              emitter.onNext(next);
+            }
+            return cursor;
+          }
+        },
+        new Consumer<PageCursor>() {
+          @Override
+          public void accept(PageCursor cursor) {
+            cursor.dispose();
+          }
+        });
+  }
+
+  /**
+   * Walks through the pages of a stream, keeping the requested number of pages in flight.
+   */
+  private final class PageCursor {
+    private final Map<String, String> query;
+
+    private final int prefetch;
+
+    private final int pageSize;
+
+    private final Deque<Flowable<CDAArray>> ahead = new ArrayDeque<>();
+
+    /** The connection of every page in {@link #ahead}, in the same order. */
+    private final Deque<Disposable> connections = new ArrayDeque<>();
+
+    private Iterator<T> items = Collections.<T>emptyList().iterator();
+
+    private int nextSkip;
+
+    /** Total number of results, negative until the first page arrived. */
+    private int total = -1;
+
+    PageCursor(Map<String, String> query, int prefetch) {
+      this.query = query;
+      this.prefetch = prefetch;
+      this.pageSize = pageSize(query);
+      this.nextSkip = firstSkip(query);
+    }
+
+    /**
+     * @return the next resource, fetching its page if needed. Null if all pages were consumed.
+     */
+    T next() {
+      while (!items.hasNext()) {
+        final CDAArray array;
+        if (!ahead.isEmpty()) {
+          final Flowable<CDAArray> page = ahead.poll();
+          try {
+            array = page.blockingFirst();
+          } finally {
+            connections.poll().dispose();
+          }
+        } else if (total < 0 || (pageSize > 0 && nextSkip < total)) {
+          array = page(query, nextSkip).blockingFirst();
+          nextSkip += pageSize;
+        } else {
+          return null;
+        }
+
+        total = array.total();
+        fill();
+        items = itemsOf(array).iterator();
+      }
+      return items.next();
+    }
+
+    /**
+     * Start fetching pages ahead, until the requested number of pages is in flight.
+     */
+    private void fill() {
+      while (pageSize > 0 && nextSkip < total && ahead.size() < prefetch) {
+        final ConnectableFlowable<CDAArray> page =
+            page(query, nextSkip).subscribeOn(Schedulers.io()).replay();
+        connections.add(page.connect());
+        ahead.add(page);
+        nextSkip += pageSize;
+      }
+    }
+
+    void dispose() {
+      for (Disposable connection : connections) {
+        connection.dispose();
+      }
+      connections.clear();
+      ahead.clear();
+    }
+  }
+
+  /**
+   * Fetch all pages of this query at once and merge them into one array.
+   * <p>
+   * The first page tells the total number of results, all following pages then get fetched on
+   * {@link Schedulers#io()}, with at most {@code parallelism} requests at a time. Like every
+   * other request, pages hitting the rate limit are only retried by the rate limiter or retry
+   * policy of the client, if configured. The given {@link #limit(int)} is the page size, and
+   * results are ordered by {@code sys.id} unless ordered otherwise.
+   * <p>
+   * All pages are merged before processing them, so links get resolved against the includes of
+   * all pages and every resource got created only once. The merged array contains all items in
+   * order and reports the skip of the first page and the number of items fetched as limit.
+   *
+   * @param parallelism how many pages to fetch at once at most.
+   * @return {@link Flowable} instance.
+   * @throws IllegalArgumentException if parallelism is less than one.
+   */
+  public Flowable<CDAArray> allPages(final int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism of " + parallelism + " is less than 1.");
+    }
+
+    final Map<String, String> query = pagedParams();
+    final int pageSize = pageSize(query);
+    final int firstSkip = firstSkip(query);
+    return client.cacheAll(false)
+        .flatMap(new Function<Cache, Publisher<CDAArray>>() {
+          @Override
+          public Publisher<CDAArray> apply(Cache cache) {
+            return rawPage(query, firstSkip);
+          }
+        })
+        .flatMap(new Function<CDAArray, Publisher<List<CDAArray>>>() {
+          @Override
+          public Publisher<List<CDAArray>> apply(CDAArray first) {
+            final int skip = firstSkip + pageSize;
+            if (pageSize <= 0 || skip >= first.total()) {
+              return Flowable.just(Collections.singletonList(first));
+            }
+
+            final int pages = (first.total() - skip + pageSize - 1) / pageSize;
+            return Flowable.just(first)
+                .concatWith(Flowable.range(0, pages)
+                    .concatMapEager(new Function<Integer, Publisher<CDAArray>>() {
+                      @Override
+                      public Publisher<CDAArray> apply(Integer page) {
+                        return rawPage(query, skip + page * pageSize)
+                            .subscribeOn(Schedulers.io());
+                      }
+                    }, parallelism, 1))
+                .toList()
+                .toFlowable();
+          }
+        })
+        .flatMap(new Function<List<CDAArray>, Publisher<CDAArray>>() {
+          @Override
+          public Publisher<CDAArray> apply(List<CDAArray> pages) {
+            final CDAArray array = ResourceFactory.mergePages(pages);
+            return client
+                .cacheTypesWithIds(ResourceFactory.missingContentTypeIds(array, client.cache))
+                .map(new Function<Cache, CDAArray>() {
+                  @Override
+                  public CDAArray apply(Cache cache) {
+                    return ResourceFactory.array(array, client, false);
+                  }
+                });
+          }
+        });
+  }
+
+  /**
+   * Fetch one page without processing it.
+   */
+  private Flowable<CDAArray> rawPage(Map<String, String> query, int skip) {
+    final Map<String, String> pageParams = new HashMap<>(query);
+    pageParams.put(PARAMETER_SKIP, Integer.toString(skip));
+    return client.service.array(client.spaceId, client.environmentId, path(), pageParams)
+        .map(new Function<Response<CDAArray>, CDAArray>() {
           @Override
           public CDAArray apply(Response<CDAArray> response) {
-            return ResourceFactory.array(response, client);
+            return response.body();
           }
         });
   }
+
+  /**
+   * @return the parameters of this query, ordered by id unless ordered otherwise.
+   */
+  private Map<String, String> pagedParams() {
+    final Map<String, String> query = new HashMap<>(params);
+    if (!query.containsKey(PARAMETER_ORDER)) {
+      query.put(PARAMETER_ORDER, "sys.id");
+    }
+    return query;
+  }
+
+  private static int pageSize(Map<String, String> query) {
+    return query.containsKey(PARAMETER_LIMIT)
+        ? Integer.parseInt(query.get(PARAMETER_LIMIT))
+        : DEFAULT_PAGE_SIZE;
+  }
+
+  private static int firstSkip(Map<String, String> query) {
+    return query.containsKey(PARAMETER_SKIP) ? Integer.parseInt(query.get(PARAMETER_SKIP)) : 0;
+  }
+
+  private Flowable<CDAArray> page(Map<String, String> query, int skip) {
+    return client.observe(type)
+        .where(query)
+        .skip(skip)
+        .all();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<T> itemsOf(CDAArray array) {
+    final List<T> items = new ArrayList<>(array.items().size());
+    for (CDAResource resource : array.items()) {
+      if (!type.isInstance(resource)) {
+        throw new IllegalStateException("Requesting a list of " + type.getSimpleName()
+            + " should not return any other type.");
+      }
+      items.add((T) resource);
+    }
+    return items;
+  }
 }
@@ -0,0 +1,221 @@
+package com.contentful.java.cda;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map of the assets or entries of a space after a delta sync, keeping only the resources changed
+ * on top of the map of the previous space.
+ * <p>
+ * The map below is never changed through this one, so the previous space stays as it was. Layers
+ * get folded into each other the way a binary counter carries, see {@link #over(Map)}, so looking
+ * up a resource passes as many layers as the logarithm of the number of syncs, and every change
+ * gets copied about as often. Once the changes outweigh the resources below, all of them get
+ * copied into a plain map.
+ */
+final class OverlayMap<T> extends AbstractMap<String, T> implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** Marks a resource removed from the map below. */
+  private static final Object REMOVED = new Object();
+
+  private final transient Map<String, T> base;
+
+  /** Resources put into this map, or {@link #REMOVED}. */
+  private final transient Map<String, Object> changes;
+
+  /** How many syncs the changes of this layer were made by. */
+  private final transient int weight;
+
+  private transient int size;
+
+  private OverlayMap(Map<String, T> base, Map<String, Object> changes, int weight) {
+    this.base = base;
+    this.changes = changes;
+    this.weight = weight;
+
+    size = base.size();
+    for (Map.Entry<String, Object> change : changes.entrySet()) {
+      final boolean below = base.containsKey(change.getKey());
+      if (change.getValue() == REMOVED) {
+        size -= below ? 1 : 0;
+      } else {
+        size += below ? 0 : 1;
+      }
+    }
+  }
+
+  /**
+   * Start recording changes to the given map.
+   *
+   * @param base the map of the previous space, left unchanged.
+   * @param <T>  the type of the resources.
+   * @return a map of the same resources, to be changed by one delta sync.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> Map<String, T> over(Map<String, T> base) {
+    Map<String, T> below = base;
+    Map<String, Object> changes = new HashMap<>();
+    int weight = 1;
+    while (below instanceof OverlayMap && ((OverlayMap<T>) below).weight <= weight) {
+      final OverlayMap<T> layer = (OverlayMap<T>) below;
+      final Map<String, Object> folded = new HashMap<>(layer.changes);
+      folded.putAll(changes);
+      changes = folded;
+      weight += layer.weight;
+      below = layer.base;
+    }
+
+    if (changes.size() * 2 > below.size()) {
+      final Map<String, T> flat = new HashMap<>(below);
+      for (Map.Entry<String, Object> change : changes.entrySet()) {
+        if (change.getValue() == REMOVED) {
+          flat.remove(change.getKey());
+        } else {
+          flat.put(change.getKey(), (T) change.getValue());
+        }
+      }
+      return flat;
+    }
+    return new OverlayMap<>(below, changes, weight);
+  }
+
+  /**
+   * @return the map this one records changes to.
+   */
+  Map<String, T> base() {
+    return base;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override public T get(Object key) {
+    final Object change = changes.get(key);
+    if (change != null) {
+      return change == REMOVED ? null : (T) change;
+    }
+    return base.get(key);
+  }
+
+  @Override public boolean containsKey(Object key) {
+    final Object change = changes.get(key);
+    if (change != null) {
+      return change != REMOVED;
+    }
+    return base.containsKey(key);
+  }
+
+  @Override public T put(String key, T value) {
+    final boolean contained = containsKey(key);
+    final T previous = get(key);
+    changes.put(key, value);
+    size += contained ? 0 : 1;
+    return previous;
+  }
+
+  @Override public T remove(Object key) {
+    if (!containsKey(key)) {
+      return null;
+    }
+
+    final T previous = get(key);
+    if (base.containsKey(key)) {
+      changes.put((String) key, REMOVED);
+    } else {
+      changes.remove(key);
+    }
+    size--;
+    return previous;
+  }
+
+  @Override public int size() {
+    return size;
+  }
+
+  @Override public Set<Entry<String, T>> entrySet() {
+    return new AbstractSet<Entry<String, T>>() {
+      @Override public Iterator<Entry<String, T>> iterator() {
+        return new Entries();
+      }
+
+      @Override public int size() {
+        return size;
+      }
+    };
+  }
+
+  private Object writeReplace() {
+    return new HashMap<>(this);
+  }
+
+  /**
+   * Iterates the resources below not changed, followed by the ones put into this map.
+   */
+  private final class Entries implements Iterator<Entry<String, T>> {
+    private final Iterator<Entry<String, T>> below = base.entrySet().iterator();
+
+    /** Created once all resources below are iterated, removing them changes the changes. */
+    private Iterator<Entry<String, Object>> changed;
+
+    private Entry<String, T> next;
+
+    private String current;
+
+    @Override public boolean hasNext() {
+      if (next == null) {
+        next = advance();
+      }
+      return next != null;
+    }
+
+    @Override public Entry<String, T> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Entry<String, T> result = next;
+      current = result.getKey();
+      next = null;
+      return result;
+    }
+
+    @Override public void remove() {
+      if (current == null || next != null) {
+        // removing would need another look ahead
+        throw new IllegalStateException();
+      }
+      if (changed != null && !base.containsKey(current)) {
+        changed.remove();
+        size--;
+      } else {
+        OverlayMap.this.remove(current);
+      }
+      current = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<String, T> advance() {
+      while (below.hasNext()) {
+        final Entry<String, T> entry = below.next();
+        if (!changes.containsKey(entry.getKey())) {
+          // immutable, the map below must not be changed through it
+          return new SimpleImmutableEntry<>(entry);
+        }
+      }
+      if (changed == null) {
+        changed = changes.entrySet().iterator();
+      }
+      while (changed.hasNext()) {
+        final Entry<String, Object> change = changed.next();
+        if (change.getValue() != REMOVED) {
+          return new SimpleImmutableEntry<>(change.getKey(), (T) change.getValue());
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.contentful.java.cda;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resolves links and rich text of the entries of large arrays on multiple threads.
+ * <p>
+ * The entries are split into chunks, which get claimed one after the other by tasks on the
+ * executor and by the calling thread. The calling thread keeps claiming chunks until none are
+ * left, so resolution always finishes, even if the executor never gets to run any of its tasks.
+ * <p>
+ * Resolving one entry only changes that entry and only reads the assets and entries of the array,
+ * so chunks do not need to coordinate with each other.
+ */
+final class ParallelResolution {
+  /** Smallest number of entries worth handing over to another thread. */
+  static final int MIN_CHUNK_SIZE = 32;
+
+  /** How many chunks every thread should get, so that uneven chunks do not stall others. */
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private ParallelResolution() {
+    throw new AssertionError();
+  }
+
+  /**
+   * @param client the client configuring parallel resolution.
+   * @param size   number of entries to be resolved.
+   * @return true if the given number of entries should be resolved in parallel.
+   */
+  static boolean isEnabled(CDAClient client, int size) {
+    return client.parallelResolutionThreshold > 0
+        && size >= client.parallelResolutionThreshold
+        && size > MIN_CHUNK_SIZE;
+  }
+
+  /**
+   * Resolve all given entries, blocking until every one of them got resolved.
+   *
+   * @param array   the array containing the complete response.
+   * @param client  the client configuring parallel resolution.
+   * @param entries the entries to be resolved, their content types already ensured.
+   * @throws RuntimeException the first exception thrown by resolving any of the entries.
+   */
+  static void resolve(final ArrayResource array, final CDAClient client,
+      final List<CDAEntry> entries) {
+    final int threads = Runtime.getRuntime().availableProcessors();
+    final int chunkSize = Math.max(MIN_CHUNK_SIZE,
+        (entries.size() + threads * CHUNKS_PER_THREAD - 1) / (threads * CHUNKS_PER_THREAD));
+    final int chunks = (entries.size() + chunkSize - 1) / chunkSize;
+
+    final AtomicInteger next = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(chunks);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final Runnable worker = new Runnable() {
+      @Override public void run() {
+        int chunk;
+        while ((chunk = next.getAndIncrement()) < chunks) {
+          try {
+            if (failure.get() == null) {
+              final int end = Math.min(entries.size(), (chunk + 1) * chunkSize);
+              for (int i = chunk * chunkSize; i < end; ++i) {
+                ResourceFactory.resolveEntry(array, client, entries.get(i));
+              }
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          } finally {
+            done.countDown();
+          }
+        }
+      }
+    };
+
+    final Executor executor = client.parallelResolutionExecutor == null
+        ? ForkJoinPool.commonPool()
+        : client.parallelResolutionExecutor;
+    final int helpers = Math.min(chunks, threads) - 1;
+    for (int i = 0; i < helpers; ++i) {
+      try {
+        executor.execute(worker);
+      } catch (RejectedExecutionException e) {
+        // the calling thread picks up the chunks left
+        break;
+      }
+    }
+    worker.run();
+
+    awaitUninterruptibly(done);
+    rethrow(failure.get());
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        // other threads are still changing entries of the array, so keep waiting for them
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void rethrow(Throwable throwable) {
+    if (throwable == null) {
+      return;
+    }
+    if (throwable instanceof RuntimeException) {
+      throw (RuntimeException) throwable;
+    }
+    if (throwable instanceof Error) {
+      throw (Error) throwable;
+    }
+    throw new IllegalStateException(throwable);
+  }
+}
@@ -0,0 +1,374 @@
+package com.contentful.java.cda;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.functions.Consumer;
+import io.reactivex.rxjava3.functions.Supplier;
+import org.reactivestreams.Publisher;
+
+import static com.contentful.java.cda.Util.extractNested;
+
+/**
+ * Keeps the processed results of queries in memory, so repeating a query skips the request,
+ * parsing and resolving of links.
+ * <p>
+ * Results are keyed by space, environment, path and the query parameters in sorted order. They
+ * are evicted least recently used first, once the weight of all results exceeds the configured
+ * maximum. The weight of a result is the number of resources it contains. Results expire after a
+ * configurable time and get dropped by delta syncs of this client changing any resource they
+ * contain or may contain.
+ * <p>
+ * In stale-while-revalidate mode an expired result is still returned right away, while one
+ * request per query refreshes it in the background. Failing refreshes keep the expired result.
+ * <p>
+ * Cached arrays are returned to every caller repeating the query and therefore must not be
+ * modified.
+ */
+public class QueryCache {
+  /** Drops the outcome of background refreshes, failing ones keep the stale result. */
+  private static final Consumer<Object> IGNORE = new Consumer<Object>() {
+    @Override public void accept(Object ignored) {
+    }
+  };
+
+  private final long maxWeight;
+
+  private final long ttlMillis;
+
+  private final boolean staleWhileRevalidate;
+
+  private final Scheduler scheduler;
+
+  private final SingleFlight<String> refreshes = new SingleFlight<>();
+
+  private final Map<String, Result> results = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long weight;
+
+  /** Increases with every invalidation, so results fetched before are not cached. */
+  private long generation;
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  private final AtomicLong staleHits = new AtomicLong();
+
+  /**
+   * One cached result.
+   */
+  private static final class Result {
+    final String path;
+
+    final String contentType;
+
+    final CDAArray array;
+
+    final long weight;
+
+    final long created;
+
+    Result(String path, String contentType, CDAArray array, long created) {
+      this.path = path;
+      this.contentType = contentType;
+      this.array = array;
+      this.weight = weightOf(array);
+      this.created = created;
+    }
+
+    boolean contains(String id) {
+      return array.assets().containsKey(id) || array.entries().containsKey(id);
+    }
+  }
+
+  /**
+   * Create a cache.
+   *
+   * @param maxWeight            how many resources to keep at most.
+   * @param ttl                  how long results stay fresh, zero or less for ever.
+   * @param unit                 the unit of the ttl.
+   * @param staleWhileRevalidate true to return expired results while refreshing them.
+   * @param scheduler            the scheduler providing the time and running refreshes.
+   */
+  QueryCache(long maxWeight, long ttl, TimeUnit unit, boolean staleWhileRevalidate,
+      Scheduler scheduler) {
+    if (maxWeight <= 0) {
+      throw new IllegalArgumentException(
+          "Cache weight must be positive, but was " + maxWeight + ".");
+    }
+    this.maxWeight = maxWeight;
+    this.ttlMillis = ttl > 0 ? unit.toMillis(ttl) : 0;
+    this.staleWhileRevalidate = staleWhileRevalidate;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Create a key for the given query.
+   *
+   * @param spaceId       the space queried.
+   * @param environmentId the environment queried.
+   * @param path          the path of the resources queried.
+   * @param params        the parameters of the query.
+   * @return a key identifying the query, independent of the order of its parameters.
+   */
+  static String key(String spaceId, String environmentId, String path,
+      Map<String, String> params) {
+    final StringBuilder builder = new StringBuilder()
+        .append(spaceId).append('/')
+        .append(environmentId).append('/')
+        .append(path).append('?');
+    for (Map.Entry<String, String> param : new TreeMap<>(params).entrySet()) {
+      builder.append(param.getKey()).append('=').append(param.getValue()).append('&');
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Answer a query from the cache, fetching it if needed.
+   *
+   * @param key         the key of the query, see {@link #key}.
+   * @param path        the path of the resources queried.
+   * @param contentType the content type queried, null if not restricted to one.
+   * @param fetch       requests and processes the result of the query.
+   * @return a flowable emitting the cached result, or the fetched one once it got cached.
+   */
+  Flowable<CDAArray> query(final String key, final String path, final String contentType,
+      final Flowable<CDAArray> fetch) {
+    return Flowable.defer(new Supplier<Publisher<CDAArray>>() {
+      @Override public Publisher<CDAArray> get() {
+        final Result result = lookup(key);
+        if (result == null) {
+          return fetchAndPut(key, path, contentType, fetch);
+        }
+
+        if (expired(result)) {
+          staleHits.incrementAndGet();
+          refreshes.run(key, fetchAndPut(key, path, contentType, fetch).subscribeOn(scheduler))
+              .subscribe(IGNORE, IGNORE);
+        }
+        return Flowable.just(result.array);
+      }
+    });
+  }
+
+  /**
+   * @return the result of the given key, null if there is none or it expired and cannot be
+   *     returned stale.
+   */
+  private synchronized Result lookup(String key) {
+    final Result result = results.get(key);
+    if (result == null || (!staleWhileRevalidate && expired(result))) {
+      if (result != null) {
+        remove(key);
+      }
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return result;
+  }
+
+  private Flowable<CDAArray> fetchAndPut(final String key, final String path,
+      final String contentType, Flowable<CDAArray> fetch) {
+    final long generation;
+    synchronized (this) {
+      generation = this.generation;
+    }
+    return fetch.doOnNext(new Consumer<CDAArray>() {
+      @Override public void accept(CDAArray array) {
+        put(key, path, contentType, array, generation);
+      }
+    });
+  }
+
+  /**
+   * Cache the result of a query, unless the cache got invalidated since it was requested.
+   *
+   * @param key         the key of the query.
+   * @param path        the path of the resources queried.
+   * @param contentType the content type queried, null if not restricted to one.
+   * @param array       the processed result.
+   * @param generation  the generation of the cache when the query was requested.
+   */
+  private synchronized void put(String key, String path, String contentType, CDAArray array,
+      long generation) {
+    if (generation != this.generation) {
+      return;
+    }
+
+    final Result result =
+        new Result(path, contentType, array, scheduler.now(TimeUnit.MILLISECONDS));
+    if (result.weight > maxWeight) {
+      remove(key);
+      return;
+    }
+
+    final Result replaced = results.put(key, result);
+    if (replaced != null) {
+      weight -= replaced.weight;
+    }
+    weight += result.weight;
+
+    final Iterator<Result> eldest = results.values().iterator();
+    while (weight > maxWeight && eldest.hasNext()) {
+      weight -= eldest.next().weight;
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Drop all results containing the given asset or entry.
+   *
+   * @param id the id of the resource changed.
+   */
+  public synchronized void invalidate(String id) {
+    generation++;
+    final Iterator<Result> iterator = results.values().iterator();
+    while (iterator.hasNext()) {
+      final Result result = iterator.next();
+      if (result.contains(id)) {
+        weight -= result.weight;
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Drop all results affected by the resources of a delta sync.
+   * <p>
+   * Besides all results containing a changed or deleted resource, all results of queries for
+   * assets, or for entries of the content type of a changed entry, get dropped: the changed
+   * resource may match them now.
+   *
+   * @param assets         the assets created or updated.
+   * @param entries        the entries created or updated.
+   * @param deletedAssets  the ids of the assets deleted.
+   * @param deletedEntries the ids of the entries deleted.
+   */
+  synchronized void invalidate(Collection<CDAAsset> assets, Collection<CDAEntry> entries,
+      Collection<String> deletedAssets, Collection<String> deletedEntries) {
+    generation++;
+    final Iterator<Result> iterator = results.values().iterator();
+    while (iterator.hasNext()) {
+      final Result result = iterator.next();
+      if (affected(result, assets, entries, deletedAssets, deletedEntries)) {
+        weight -= result.weight;
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Drop all cached results.
+   */
+  public synchronized void clear() {
+    generation++;
+    results.clear();
+    weight = 0;
+  }
+
+  /**
+   * @return how many queries were answered from the cache.
+   */
+  public long hitCount() {
+    return hits.get();
+  }
+
+  /**
+   * @return how many queries had to be requested.
+   */
+  public long missCount() {
+    return misses.get();
+  }
+
+  /**
+   * @return how many of the {@link #hitCount() hits} returned an expired result, while
+   *     refreshing it.
+   */
+  public long staleHitCount() {
+    return staleHits.get();
+  }
+
+  /**
+   * @return the weight of all results currently cached.
+   */
+  public synchronized long weight() {
+    return weight;
+  }
+
+  /**
+   * @return the maximal weight of all results cached.
+   */
+  public long maxWeight() {
+    return maxWeight;
+  }
+
+  private boolean expired(Result result) {
+    return ttlMillis > 0 && scheduler.now(TimeUnit.MILLISECONDS) - result.created >= ttlMillis;
+  }
+
+  private void remove(String key) {
+    final Result removed = results.remove(key);
+    if (removed != null) {
+      weight -= removed.weight;
+    }
+  }
+
+  private static boolean affected(Result result, Collection<CDAAsset> assets,
+      Collection<CDAEntry> entries, Collection<String> deletedAssets,
+      Collection<String> deletedEntries) {
+    if (!assets.isEmpty() && Constants.PATH_ASSETS.equals(result.path)) {
+      return true;
+    }
+    for (CDAAsset asset : assets) {
+      if (result.contains(asset.id())) {
+        return true;
+      }
+    }
+    for (CDAEntry entry : entries) {
+      if (result.contains(entry.id()) || matchesType(result, entry)) {
+        return true;
+      }
+    }
+    for (String id : deletedAssets) {
+      if (result.contains(id)) {
+        return true;
+      }
+    }
+    for (String id : deletedEntries) {
+      if (result.contains(id)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean matchesType(Result result, CDAEntry entry) {
+    if (!Constants.PATH_ENTRIES.equals(result.path)) {
+      return false;
+    }
+    if (result.contentType == null) {
+      return true;
+    }
+    final String type = extractNested(entry.attrs(), "contentType", "sys", "id");
+    return type == null || result.contentType.equals(type);
+  }
+
+  private static long weightOf(CDAArray array) {
+    long weight = array.assets().size() + array.entries().size();
+    for (CDAResource item : array.items()) {
+      if (!(item instanceof CDAAsset) && !(item instanceof CDAEntry)) {
+        weight++;
+      }
+    }
+    return Math.max(1, weight);
+  }
+}
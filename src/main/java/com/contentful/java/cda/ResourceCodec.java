@@ -0,0 +1,37 @@
+package com.contentful.java.cda;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Converts post processed arrays and synchronized spaces to bytes and back, i.e. for keeping them
+ * in a cache or on disk.
+ * <p>
+ * Decoding returns a resource equivalent to the one encoded: links and rich text are resolved
+ * again, so no additional requests are needed.
+ *
+ * @see BinaryResourceCodec
+ */
+public interface ResourceCodec {
+  /**
+   * Write the given array to the stream, leaving the stream open.
+   *
+   * @param array  a {@link CDAArray} or {@link SynchronizedSpace} to be encoded.
+   * @param output the stream to write to.
+   * @throws IOException              if writing failed.
+   * @throws IllegalArgumentException if the array cannot be encoded by this codec.
+   */
+  void encode(ArrayResource array, OutputStream output) throws IOException;
+
+  /**
+   * Read an array written by {@link #encode(ArrayResource, OutputStream)}.
+   *
+   * @param input the stream to read from.
+   * @param type  the expected type of the array.
+   * @param <T>   {@link CDAArray} or {@link SynchronizedSpace}.
+   * @return the decoded array, ready to be used.
+   * @throws IOException if reading failed or the stream does not contain an array of that type.
+   */
+  <T extends ArrayResource> T decode(InputStream input, Class<T> type) throws IOException;
+}
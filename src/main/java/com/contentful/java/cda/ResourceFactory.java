@@ -4,7 +4,10 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import retrofit2.Response;
 
+import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -22,32 +25,172 @@ public final class ResourceFactory {
   static final Gson GSON = createGson();
 
   public static CDAArray array(Response<CDAArray> arrayResponse, CDAClient client) {
-    CDAArray array = arrayResponse.body();
-    array.assets = new LinkedHashMap<>();
-    array.entries = new LinkedHashMap<>();
-
-    Set<CDAResource> resources = collectResources(array);
-    ResourceUtils.localizeResources(resources, client.cache);
-    ResourceUtils.mapResources(resources, array.assets, array.entries);
-    ResourceUtils.setRawFields(array);
-    resolveRichTextField(array, client);
-    ResourceUtils.resolveLinks(array, client);
-    return array;
+    return arrayFromJson(arrayResponse.body(), client);
   }
 
   public static CDAArray arrayFromJson(CDAArray array, CDAClient client) {
+    return array(array, client, true);
+  }
+
+  /**
+   * Localize, map and resolve the given array.
+   *
+   * @param array             the deserialized array.
+   * @param client            the client of the request.
+   * @param fetchMissingTypes true to fetch content types not cached yet one by one, false if
+   *                          all types got cached before, see {@link #missingContentTypeIds}.
+   * @return the given array, ready to be used.
+   */
+  static CDAArray array(CDAArray array, CDAClient client, boolean fetchMissingTypes) {
     array.assets = new LinkedHashMap<>();
     array.entries = new LinkedHashMap<>();
 
     Set<CDAResource> resources = collectResources(array);
-    ResourceUtils.localizeResources(resources, client.cache);
-    ResourceUtils.mapResources(resources, array.assets, array.entries);
-    ResourceUtils.setRawFields(array);
-    resolveRichTextField(array, client);
-    ResourceUtils.resolveLinks(array, client);
+    ResourceUtils.localizeAndMapResources(resources, client.cache, array.assets, array.entries);
+    processEntries(array, client, fetchMissingTypes);
     return array;
   }
 
+  /**
+   * Find all content types used by entries of the given array, which are not cached yet.
+   *
+   * @param array the deserialized array.
+   * @param cache the cache to look types up in.
+   * @return the ids of the missing content types, mapped to the id of the first entry using it.
+   */
+  static Map<String, String> missingContentTypeIds(CDAArray array, Cache cache) {
+    return ResourceUtils.missingContentTypeIds(collectResources(array), cache);
+  }
+
+  /**
+   * Post process all entries of the given array, once all of its resources are mapped.
+   * <p>
+   * Every entry is visited once for setting its raw fields and ensuring its content type. Then the
+   * {@link FieldPlan} cached for that type is used to resolve rich text and links, without walking
+   * the field definitions of the type again. Large arrays get resolved in parallel, if enabled
+   * through {@link CDAClient.Builder#setParallelResolution(int, java.util.concurrent.Executor)}.
+   *
+   * @param array             the array containing the complete response.
+   * @param client            the client to be used if updating of types is needed.
+   * @param fetchMissingTypes true to fetch content types not cached yet one by one, false if all
+   *                          types got cached before.
+   */
+  static void processEntries(ArrayResource array, CDAClient client, boolean fetchMissingTypes) {
+    processEntries(array, array.assets().values(), array.entries().values(), client,
+        fetchMissingTypes);
+  }
+
+  /**
+   * Post process only the given assets and entries of the array.
+   *
+   * @param array             the array containing the complete response.
+   * @param assets            the assets of the array to be processed.
+   * @param entries           the entries of the array to be processed.
+   * @param client            the client to be used if updating of types is needed.
+   * @param fetchMissingTypes true to fetch content types not cached yet one by one, false if all
+   *                          types got cached before.
+   * @see #processEntries(ArrayResource, CDAClient, boolean)
+   */
+  static void processEntries(ArrayResource array, Collection<CDAAsset> assets,
+      Collection<CDAEntry> entries, CDAClient client, boolean fetchMissingTypes) {
+    for (CDAAsset asset : assets) {
+      ResourceUtils.setRawFields(asset);
+    }
+
+    final List<CDAEntry> list = new ArrayList<>(entries);
+    for (CDAEntry entry : list) {
+      ResourceUtils.setRawFields(entry);
+      if (fetchMissingTypes) {
+        ResourceUtils.ensureContentType(entry, client);
+      } else {
+        ResourceUtils.ensureCachedContentType(entry, client);
+      }
+    }
+
+    if (ParallelResolution.isEnabled(client, list.size())) {
+      ParallelResolution.resolve(array, client, list);
+    } else {
+      for (CDAEntry entry : list) {
+        resolveEntry(array, client, entry);
+      }
+    }
+  }
+
+  /**
+   * Resolve rich text and links of one entry, its content type already ensured.
+   *
+   * @param array  the array containing the complete response.
+   * @param client the client caching the field plans.
+   * @param entry  the entry to be resolved.
+   */
+  static void resolveEntry(ArrayResource array, CDAClient client, CDAEntry entry) {
+    resolveEntry(array, entry, ResourceUtils.fieldPlan(entry.contentType(), client.cache));
+  }
+
+  /**
+   * Resolve rich text and links of one entry following the given plan.
+   *
+   * @param array the array containing all resources linked to.
+   * @param entry the entry to be resolved.
+   * @param plan  the plan of the entries content type.
+   */
+  static void resolveEntry(ArrayResource array, CDAEntry entry, FieldPlan plan) {
+    for (CDAField field : plan.richTextFields) {
+      resolveRichTextField(array, entry, field);
+    }
+    ResourceUtils.resolveLinks(array, entry, plan);
+  }
+
+  /**
+   * Merge the deserialized pages of one query into the first one, before processing it.
+   * <p>
+   * Items and includes are taken once per id, includes also being items are dropped.
+   *
+   * @param pages all pages in order, not processed yet.
+   * @return the first page, containing the items, includes and errors of all pages.
+   */
+  static CDAArray mergePages(List<CDAArray> pages) {
+    final CDAArray first = pages.get(0);
+    final Map<String, CDAResource> items = new LinkedHashMap<>();
+    final Map<String, CDAAsset> assets = new LinkedHashMap<>();
+    final Map<String, CDAEntry> entries = new LinkedHashMap<>();
+    final List<CDAError> errors = new ArrayList<>();
+    for (CDAArray page : pages) {
+      for (CDAResource item : page.items()) {
+        if (!items.containsKey(item.id())) {
+          items.put(item.id(), item);
+        }
+      }
+      if (page.includes != null) {
+        putMissing(page.includes.assets, assets);
+        putMissing(page.includes.entries, entries);
+      }
+      if (page.getErrors() != null) {
+        errors.addAll(page.getErrors());
+      }
+    }
+    assets.keySet().removeAll(items.keySet());
+    entries.keySet().removeAll(items.keySet());
+
+    first.items = new ArrayList<>(items.values());
+    first.limit = first.items.size();
+    first.includes = new CDAArray.Includes();
+    first.includes.assets = new ArrayList<>(assets.values());
+    first.includes.entries = new ArrayList<>(entries.values());
+    first.setErrors(first.getErrors() == null && errors.isEmpty() ? null : errors);
+    return first;
+  }
+
+  private static <T extends CDAResource> void putMissing(List<T> resources, Map<String, T> map) {
+    if (resources != null) {
+      for (T resource : resources) {
+        if (!map.containsKey(resource.id())) {
+          map.put(resource.id(), resource);
+        }
+      }
+    }
+  }
+
   private static Set<CDAResource> collectResources(CDAArray array) {
     Set<CDAResource> resources = new LinkedHashSet<>(array.items());
     if (array.includes != null) {
@@ -61,34 +204,233 @@ public final class ResourceFactory {
     return resources;
   }
 
+  /**
+   * Fetch all pages of the given sync response and merge them into the old space.
+   * <p>
+   * A delta sync only records the synced resources and the links of the synced entries, on top of
+   * the maps and link index of the old space, which stay untouched: its cost depends on the size of
+   * the sync, not the size of the space. The entries of the result are not resolved yet, but listed
+   * in {@link SynchronizedSpace#unresolvedEntries}, and the fields of entries linking to changed
+   * resources in {@link SynchronizedSpace#relinkedFields}: cache their content types and then
+   * call {@link #resolveSync(SynchronizedSpace, CDAClient)}. Until then, the old space is left as
+   * it was, so it can still be used if anything fails.
+   *
+   * @param newSpace the first page of the sync response.
+   * @param oldSpace the space of the previous sync, null for an initial sync.
+   * @param client   the client of the request.
+   * @return the merged space, entries not resolved yet.
+   */
   static SynchronizedSpace sync(
       Response<SynchronizedSpace> newSpace,
       SynchronizedSpace oldSpace,
       CDAClient client) {
 
-    Map<String, CDAAsset> assets = new HashMap<>();
-    Map<String, CDAEntry> entries = new HashMap<>();
-    // Map resources from existing space
-    if (oldSpace != null) {
-      ResourceUtils.mapResources(oldSpace.items(), assets, entries);
-    }
-    SynchronizedSpace result = ResourceUtils.iterate(newSpace, client);
-    ResourceUtils.mapResources(result.items(), assets, entries);
+    final SynchronizedSpace result = ResourceUtils.iterate(newSpace, client);
+    final List<CDAResource> synced = result.items();
     ResourceUtils.mapDeletedResources(result);
 
-    List<CDAResource> items = new ArrayList<>();
-    items.addAll(assets.values());
-    items.addAll(entries.values());
-    result.items = items;
+    final Map<String, CDAAsset> assets;
+    final Map<String, CDAEntry> entries;
+    final LinkIndex index;
+    final boolean delta = oldSpace != null && oldSpace.assets != null && oldSpace.entries != null;
+    if (delta) {
+      assets = OverlayMap.over(oldSpace.assets);
+      entries = OverlayMap.over(oldSpace.entries);
+      index = oldSpace.linkIndex == null
+          ? LinkIndex.build(oldSpace.entries.values(), client.cache)
+          : oldSpace.linkIndex.next();
+    } else {
+      assets = new HashMap<>();
+      entries = new HashMap<>();
+      index = new LinkIndex();
+      if (oldSpace != null) {
+        ResourceUtils.mapResources(oldSpace.items(), assets, entries);
+      }
+    }
+    ResourceUtils.mapResources(synced, assets, entries);
+
+    if (delta) {
+      final List<CDAAsset> unresolvedAssets = new ArrayList<>();
+      final List<CDAEntry> unresolvedEntries = new ArrayList<>();
+      final Set<String> changed = new LinkedHashSet<>(result.deletedAssets);
+      changed.addAll(result.deletedEntries);
+      for (CDAResource resource : synced) {
+        changed.add(resource.id());
+        if (resource instanceof CDAAsset) {
+          unresolvedAssets.add((CDAAsset) resource);
+        } else if (resource instanceof CDAEntry) {
+          unresolvedEntries.add((CDAEntry) resource);
+        }
+      }
+
+      for (String id : result.deletedEntries) {
+        index.remove(id);
+      }
+      final Map<String, Set<String>> relinked = new LinkedHashMap<>();
+      for (String id : changed) {
+        for (LinkIndex.Link link : index.linksTo(id)) {
+          if (!changed.contains(link.entryId()) && entries.containsKey(link.entryId())) {
+            Set<String> fields = relinked.get(link.entryId());
+            if (fields == null) {
+              fields = new LinkedHashSet<>();
+              relinked.put(link.entryId(), fields);
+            }
+            fields.add(link.field());
+          }
+        }
+      }
+      result.unresolvedAssets = unresolvedAssets;
+      result.unresolvedEntries = unresolvedEntries;
+      result.relinkedFields = relinked;
+      result.loader = oldSpace.loader;
+      result.items = new SpaceItems(assets, entries);
+    } else {
+      final List<CDAResource> items = new ArrayList<>(assets.size() + entries.size());
+      items.addAll(assets.values());
+      items.addAll(entries.values());
+      result.items = items;
+    }
     result.assets = assets;
     result.entries = entries;
-
-    ResourceUtils.setRawFields(result);
-    resolveRichTextField(result, client);
-    ResourceUtils.resolveLinks(result, client);
+    result.linkIndex = index;
     return result;
   }
 
+  /**
+   * Resolve the entries of the given sync result, which were changed or link to changed resources.
+   * <p>
+   * Entries linking to changed resources are shared with the old space: only their fields linking
+   * to changed resources get resolved again, from their raw values. From then on, the old space
+   * links to the resources of the new one as well, and should no longer be used.
+   *
+   * @param space  the result of {@link #sync(Response, SynchronizedSpace, CDAClient)}.
+   * @param client the client of the request, all content types needed already cached.
+   */
+  static void resolveSync(SynchronizedSpace space, CDAClient client) {
+    if (space.unresolvedEntries == null) {
+      processEntries(space, client, false);
+    } else {
+      processEntries(space, space.unresolvedAssets, space.unresolvedEntries, client, false);
+      for (Map.Entry<String, Set<String>> relinked : space.relinkedFields.entrySet()) {
+        final CDAEntry entry = space.entries.get(relinked.getKey());
+        relinkFields(space, entry, ResourceUtils.fieldPlan(entry.contentType(), client.cache),
+            relinked.getValue());
+      }
+    }
+    space.unresolvedAssets = null;
+    space.unresolvedEntries = null;
+    space.relinkedFields = null;
+    if (space.loader != null) {
+      // entries read later on link to the resources of this space
+      space.loader.follow(space);
+    }
+  }
+
+  /**
+   * Resolve the given fields of an entry again, starting over from their raw values.
+   */
+  private static void relinkFields(SynchronizedSpace space, CDAEntry entry, FieldPlan plan,
+      Set<String> ids) {
+    for (String id : ids) {
+      entry.fields.put(id, entry.rawFields.get(id));
+    }
+    for (CDAField field : plan.richTextFields) {
+      if (ids.contains(field.id())) {
+        resolveRichTextField(space, entry, field);
+      }
+    }
+    for (FieldPlan.LinkField field : plan.links) {
+      if (ids.contains(field.id)) {
+        ResourceUtils.resolveSingleLink(entry, field, space);
+      }
+    }
+    for (FieldPlan.LinkField field : plan.linkArrays) {
+      if (ids.contains(field.id)) {
+        ResourceUtils.resolveArrayOfLinks(entry, field, space);
+      }
+    }
+  }
+
+  /**
+   * Items of a space after a delta sync, listed from its assets and entries on first access.
+   */
+  private static final class SpaceItems extends AbstractList<CDAResource>
+      implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Map<String, CDAAsset> assets;
+
+    private final transient Map<String, CDAEntry> entries;
+
+    private transient List<CDAResource> items;
+
+    SpaceItems(Map<String, CDAAsset> assets, Map<String, CDAEntry> entries) {
+      this.assets = assets;
+      this.entries = entries;
+    }
+
+    private synchronized List<CDAResource> items() {
+      if (items == null) {
+        items = new ArrayList<>(assets.size() + entries.size());
+        items.addAll(assets.values());
+        items.addAll(entries.values());
+      }
+      return items;
+    }
+
+    @Override public CDAResource get(int index) {
+      return items().get(index);
+    }
+
+    @Override public int size() {
+      return items().size();
+    }
+
+    private Object writeReplace() {
+      return new ArrayList<>(items());
+    }
+  }
+
+  /**
+   * @return all entries of the synced space needing to be resolved, see {@link #resolveSync}.
+   */
+  static Collection<CDAEntry> unresolvedEntries(SynchronizedSpace space) {
+    if (space.unresolvedEntries == null) {
+      return space.entries().values();
+    }
+
+    final List<CDAEntry> entries = new ArrayList<>(space.unresolvedEntries);
+    for (String id : space.relinkedFields.keySet()) {
+      entries.add(space.entries.get(id));
+    }
+    return entries;
+  }
+
+  /**
+   * Localize and map the resources of one page of a sync response on their own.
+   * <p>
+   * Raw fields are set, but neither content types nor links are resolved.
+   *
+   * @param response the page of the sync response.
+   * @param client   the client of the request.
+   * @return the page, its assets and entries mapped by id.
+   */
+  static SynchronizedSpace syncPage(Response<SynchronizedSpace> response, CDAClient client) {
+    SynchronizedSpace page = fromResponse(response);
+    page.assets = new LinkedHashMap<>();
+    page.entries = new LinkedHashMap<>();
+
+    ResourceUtils.mapDeletedResources(page);
+    ResourceUtils.localizeAndMapResources(page.items(), client.cache, page.assets, page.entries);
+    for (CDAAsset asset : page.assets.values()) {
+      ResourceUtils.setRawFields(asset);
+    }
+    for (CDAEntry entry : page.entries.values()) {
+      ResourceUtils.setRawFields(entry);
+    }
+    return page;
+  }
+
   static <T extends CDAResource> T fromResponse(Response<T> response) {
     return response.body();
   }
@@ -106,8 +448,8 @@ public final class ResourceFactory {
 
   public static Gson createGson() {
     return new GsonBuilder()
-        .registerTypeAdapter(CDAResource.class, new ResourceDeserializer())
-            .disableHtmlEscaping()
+        .registerTypeAdapterFactory(new ResourceTypeAdapterFactory())
+        .disableHtmlEscaping()
         .create();
   }
 }
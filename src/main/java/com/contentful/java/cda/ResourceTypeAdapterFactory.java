@@ -0,0 +1,117 @@
+package com.contentful.java.cda;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import static com.contentful.java.cda.Constants.LOCALE;
+import static com.contentful.java.cda.Util.classForType;
+
+/**
+ * Creates the adapter deserializing any {@link CDAResource} by its {@code sys.type}.
+ * <p>
+ * The resource is read straight from the stream: only the members in front of (and including)
+ * {@code sys} are buffered as a json tree, which are usually only {@code metadata} and
+ * {@code sys} themselves. Once the type is known, the {@code fields} of assets and entries are
+ * read directly into their map, without creating an intermediate tree.
+ */
+final class ResourceTypeAdapterFactory implements TypeAdapterFactory {
+  private static final TypeToken<Map<String, Object>> FIELDS_TYPE =
+      new TypeToken<Map<String, Object>>() {
+      };
+
+  @SuppressWarnings("unchecked")
+  @Override public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    if (!CDAResource.class.equals(type.getRawType())) {
+      return null;
+    }
+    return (TypeAdapter<T>) new ResourceTypeAdapter(gson);
+  }
+
+  static final class ResourceTypeAdapter extends TypeAdapter<CDAResource> {
+    private final Gson gson;
+
+    private final TypeAdapter<JsonElement> elementAdapter;
+
+    private final TypeAdapter<Map<String, Object>> fieldsAdapter;
+
+    ResourceTypeAdapter(Gson gson) {
+      this.gson = gson;
+      this.elementAdapter = gson.getAdapter(JsonElement.class);
+      this.fieldsAdapter = gson.getAdapter(FIELDS_TYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public void write(JsonWriter out, CDAResource value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+      } else {
+        ((TypeAdapter<CDAResource>) gson.getAdapter(value.getClass())).write(out, value);
+      }
+    }
+
+    @Override public CDAResource read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+
+      final JsonObject buffered = new JsonObject();
+      Class<? extends CDAResource> clazz = null;
+      Map<String, Object> fields = null;
+
+      in.beginObject();
+      while (in.hasNext()) {
+        final String name = in.nextName();
+        if (clazz != null
+            && "fields".equals(name)
+            && LocalizedResource.class.isAssignableFrom(clazz)) {
+          fields = fieldsAdapter.read(in);
+        } else {
+          final JsonElement value = elementAdapter.read(in);
+          buffered.add(name, value);
+
+          if (clazz == null && "sys".equals(name)) {
+            clazz = classForType(extractType(value));
+          }
+        }
+      }
+      in.endObject();
+
+      if (clazz == null) {
+        throw new JsonParseException("Cannot deserialize a resource without 'sys.type'.");
+      }
+
+      final CDAResource result = gson.getAdapter(clazz).fromJsonTree(buffered);
+      if (result instanceof LocalizedResource) {
+        final LocalizedResource localized = (LocalizedResource) result;
+        if (fields != null) {
+          localized.fields = fields;
+        }
+        if (localized.fields == null) {
+          localized.fields = Collections.emptyMap();
+        }
+      }
+      return result;
+    }
+
+    private CDAType extractType(JsonElement sys) {
+      final String type = sys.getAsJsonObject()
+          .get("type")
+          .getAsString();
+
+      return CDAType.valueOf(type.toUpperCase(LOCALE));
+    }
+  }
+}
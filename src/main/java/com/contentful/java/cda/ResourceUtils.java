@@ -6,9 +6,11 @@ import io.reactivex.rxjava3.functions.Predicate;
 import retrofit2.Response;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -17,11 +19,13 @@ import static com.contentful.java.cda.CDAType.ASSET;
 import static com.contentful.java.cda.CDAType.DELETEDASSET;
 import static com.contentful.java.cda.CDAType.DELETEDENTRY;
 import static com.contentful.java.cda.CDAType.ENTRY;
-import static com.contentful.java.cda.Constants.LOCALE;
 import static com.contentful.java.cda.Util.extractNested;
 import static com.contentful.java.cda.Util.queryParam;
 
 public final class ResourceUtils {
+  private static final KeySlots ASSET_FIELD_SLOTS =
+      KeySlots.of(Arrays.asList("title", "description", "file"));
+
   private ResourceUtils() {
     throw new AssertionError();
   }
@@ -62,24 +66,37 @@ public final class ResourceUtils {
     return synchronizedSpace.body();
   }
 
-  static void resolveLinks(ArrayResource array, CDAClient client) {
-    for (CDAEntry entry : array.entries().values()) {
-      ensureContentType(entry, client);
-      CDAContentType contentType = entry.contentType();
-      if (contentType == null || contentType.fields() == null) {
-        // Content type may be null for cross-space entries
-        continue;
-      }
-      for (CDAField field : contentType.fields()) {
-        if (field.linkType() != null) {
-          resolveSingleLink(entry, field, array);
-        } else if ("Array".equals(field.type) && "Link".equals(field.items().get("type"))) {
-          resolveArrayOfLinks(entry, field, array);
-        }
+  static void resolveLinks(ArrayResource array, CDAEntry entry, FieldPlan plan) {
+    for (FieldPlan.LinkField field : plan.links) {
+      resolveSingleLink(entry, field, array);
+    }
+    for (FieldPlan.LinkField field : plan.linkArrays) {
+      resolveArrayOfLinks(entry, field, array);
+    }
+
+    if (array instanceof SynchronizedSpace) {
+      final LinkIndex index = ((SynchronizedSpace) array).linkIndex;
+      if (index != null) {
+        index.update(entry, plan);
       }
     }
   }
 
+  /**
+   * Find the plan for the given content type.
+   *
+   * @param contentType the type of the entry, null for cross-space entries.
+   * @param cache       the cache keeping the plans of all cached types.
+   * @return the plan to be used for processing entries of this content type.
+   */
+  static FieldPlan fieldPlan(CDAContentType contentType, Cache cache) {
+    if (contentType == null) {
+      // Content type may be null for cross-space entries
+      return FieldPlan.EMPTY;
+    }
+    return cache.fieldPlan(contentType);
+  }
+
   /**
    * Make sure that the given entry has a filled in content type.
    *
@@ -108,20 +125,74 @@ public final class ResourceUtils {
     }
   }
 
+  /**
+   * Set the content type of the given entry from the cache, without fetching it.
+   *
+   * @param entry  entry to be filled.
+   * @param client the client caching the content types.
+   * @throws CDAContentTypeNotFoundException if the type is not cached and it cannot be an entry
+   *                                         of another space.
+   */
+  static void ensureCachedContentType(CDAEntry entry, CDAClient client) {
+    if (entry.contentType() != null) {
+      return;
+    }
+
+    String contentTypeId = extractNested(entry.attrs(), "contentType", "sys", "id");
+    if (contentTypeId == null) {
+      return;
+    }
+
+    Map<String, CDAContentType> types = client.cache.types();
+    CDAContentType contentType = types == null ? null : types.get(contentTypeId);
+    if (contentType != null) {
+      entry.setContentType(contentType);
+    } else if (!client.hasCrossSpaceTokens) {
+      throw new CDAContentTypeNotFoundException(entry.id(), CDAEntry.class, contentTypeId,
+          new CDAResourceNotFoundException(CDAContentType.class, contentTypeId));
+    }
+  }
+
+  /**
+   * Find all content types used by the given entries, which are not cached yet.
+   *
+   * @param resources the resources to be searched, all but entries are ignored.
+   * @param cache     the cache to look types up in.
+   * @return the ids of the missing content types, mapped to the id of the first entry using it.
+   */
+  static Map<String, String> missingContentTypeIds(Collection<? extends CDAResource> resources,
+      Cache cache) {
+    Map<String, CDAContentType> types = cache.types();
+    Map<String, String> missing = new LinkedHashMap<>();
+    for (CDAResource resource : resources) {
+      if (!(resource instanceof CDAEntry) || ((CDAEntry) resource).contentType() != null) {
+        continue;
+      }
+
+      String contentTypeId = extractNested(resource.attrs(), "contentType", "sys", "id");
+      if (contentTypeId != null
+          && (types == null || !types.containsKey(contentTypeId))
+          && !missing.containsKey(contentTypeId)) {
+        missing.put(contentTypeId, resource.id());
+      }
+    }
+    return missing;
+  }
+
   @SuppressWarnings("unchecked")
-  static void resolveArrayOfLinks(CDAEntry entry, CDAField field, ArrayResource array) {
-    CDAType linkType =
-        CDAType.valueOf(((String) field.items().get("linkType")).toUpperCase(LOCALE));
-    Map<String, Object> value = (Map<String, Object>) entry.fields.get(field.id());
-    if (value == null) {
+  static void resolveArrayOfLinks(CDAEntry entry, FieldPlan.LinkField field, ArrayResource array) {
+    CDAType linkType = field.linkType;
+    Map<String, Object> value = (Map<String, Object>) entry.fields.get(field.id);
+    if (value == null || value.isEmpty()) {
       return;
     }
-    for (String locale : value.keySet()) {
-      List<?> links = (List<?>) value.get(locale);
+    value = entry.detachField(field.id);
+    for (Map.Entry<String, Object> localized : value.entrySet()) {
+      List<?> links = (List<?>) localized.getValue();
       if (links == null) {
         continue;
       }
-      List<CDAResource> resolved = new ArrayList<>();
+      List<CDAResource> resolved = new ArrayList<>(links.size());
       for (final Object link : links) {
         String linkId = getLinkId(link);
         if (linkId == null) {
@@ -132,32 +203,44 @@ public final class ResourceUtils {
           resolved.add(resource);
         }
       }
-      value.put(locale, resolved);
+      localized.setValue(resolved);
     }
   }
 
   @SuppressWarnings("unchecked")
-  static void resolveSingleLink(CDAEntry entry, CDAField field, ArrayResource array) {
-    CDAType linkType = CDAType.valueOf(field.linkType().toUpperCase(LOCALE));
-    Map<String, Object> value = (Map<String, Object>) entry.fields.get(field.id());
+  static void resolveSingleLink(CDAEntry entry, FieldPlan.LinkField field, ArrayResource array) {
+    CDAType linkType = field.linkType;
+    Map<String, Object> value = (Map<String, Object>) entry.fields.get(field.id);
     if (value == null) {
       return;
     }
-    Set<String> toRemove = new HashSet<>();
-    for (String locale : value.keySet()) {
-      String linkId = getLinkId(value.get(locale));
+    Map<String, CDAResource> resolved = null;
+    for (Map.Entry<String, Object> localized : value.entrySet()) {
+      Object link = localized.getValue();
+      String linkId = getLinkId(link);
       if (linkId == null) {
         continue;
       }
       CDAResource resource = findLinkedResource(array, linkType, linkId);
-      if (resource == null) {
-        toRemove.add(locale);
-      } else {
-        value.put(locale, resource);
+      if (resource != link) {
+        if (resolved == null) {
+          resolved = new HashMap<>();
+        }
+        // a null resource marks the locale to be removed
+        resolved.put(localized.getKey(), resource);
       }
     }
-    for (String locale : toRemove) {
-      value.remove(locale);
+    if (resolved == null) {
+      return;
+    }
+
+    value = entry.detachField(field.id);
+    for (Map.Entry<String, CDAResource> localized : resolved.entrySet()) {
+      if (localized.getValue() == null) {
+        value.remove(localized.getKey());
+      } else {
+        value.put(localized.getKey(), localized.getValue());
+      }
     }
   }
 
@@ -236,6 +319,33 @@ public final class ResourceUtils {
     space.deletedEntries = entries;
   }
 
+  /**
+   * Localize all assets and entries and map all resources by their id in one go.
+   *
+   * @param resources the resources to be processed.
+   * @param cache     the cache to take the locales from.
+   * @param assets    the map to put assets in or to remove deleted assets from.
+   * @param entries   the map to put entries in or to remove deleted entries from.
+   */
+  static void localizeAndMapResources(Collection<? extends CDAResource> resources, Cache cache,
+      Map<String, CDAAsset> assets, Map<String, CDAEntry> entries) {
+    for (CDAResource resource : resources) {
+      CDAType type = resource.type();
+      String id = resource.id();
+      if (ASSET.equals(type)) {
+        localize((LocalizedResource) resource, cache);
+        assets.put(id, (CDAAsset) resource);
+      } else if (DELETEDASSET.equals(type)) {
+        assets.remove(id);
+      } else if (DELETEDENTRY.equals(type)) {
+        entries.remove(id);
+      } else if (ENTRY.equals(type)) {
+        localize((LocalizedResource) resource, cache);
+        entries.put(id, (CDAEntry) resource);
+      }
+    }
+  }
+
   static void localizeResources(Collection<? extends CDAResource> resources, Cache cache) {
     for (CDAResource resource : resources) {
       CDAType type = resource.type();
@@ -247,45 +357,89 @@ public final class ResourceUtils {
 
   static void localize(LocalizedResource resource, Cache cache) {
     resource.defaultLocale = cache.defaultLocale().code();
-    resource.fallbackLocaleMap = getFallbackLocaleMap(cache);
+    final LocaleFallbacks fallbacks = cache.fallbacks();
+    if (fallbacks != null) {
+      fallbacks.applyTo(resource);
+    }
+    final KeySlots fields = fallbacks == null ? null : fieldSlots(resource, cache);
+    final KeySlots locales = fallbacks == null ? null : fallbacks.slots;
     String resourceLocale = resource.getAttribute("locale");
     if (resourceLocale == null) {
       // sync
+      if (locales != null) {
+        normalizeFields(resource, false, fields, locales);
+      }
     } else {
       // normal
       resource.defaultLocale = resourceLocale;
-      normalizeFields(resource);
+      normalizeFields(resource, true, fields, locales);
     }
   }
 
-  private static Map<String, String> getFallbackLocaleMap(Cache cache) {
-    final Map<String, String> fallbackLocales = new HashMap<>(cache.locales().size());
-
-    for (final CDALocale locale : cache.locales()) {
-      final String fallback = locale.fallbackLocaleCode();
-      if (fallback != null && !"".equals(fallback)) {
-        fallbackLocales.put(locale.code, fallback);
-      }
+  /**
+   * @return the slots of the fields of the given asset or entry, null if its content type is not
+   *     cached.
+   */
+  private static KeySlots fieldSlots(LocalizedResource resource, Cache cache) {
+    if (resource instanceof CDAAsset) {
+      return ASSET_FIELD_SLOTS;
     }
 
-    return fallbackLocales;
+    final Map<String, CDAContentType> types = cache.types();
+    final String contentTypeId = extractNested(resource.attrs(), "contentType", "sys", "id");
+    final CDAContentType type = types == null || contentTypeId == null
+        ? null
+        : types.get(contentTypeId);
+    return type == null ? null : type.fieldSlots();
   }
 
-  static void normalizeFields(LocalizedResource resource) {
-    Map<String, Object> fields = new HashMap<>();
-    for (String key : resource.fields.keySet()) {
-      Object value = resource.fields.get(key);
-      if (value == null) {
+  /**
+   * Bring the fields of the given resource into one form, mapping every field to its values by
+   * locale, and copy them into {@link CompactMap}s in the same pass.
+   * <p>
+   * Values of one locale only, like all values of a resource fetched in one locale, are kept in
+   * compact maps of a single slot: a slot for every locale of the environment would take more
+   * memory than the hash map replaced.
+   *
+   * @param resource  the resource to be normalized.
+   * @param oneLocale true if the resource was fetched in one locale, its fields holding values
+   *                  instead of maps by locale.
+   * @param fields    the slots of the fields of the resource, null for an ordinary map.
+   * @param locales   the slots of all locales, null for ordinary maps.
+   */
+  @SuppressWarnings("unchecked")
+  static void normalizeFields(LocalizedResource resource, boolean oneLocale, KeySlots fields,
+      KeySlots locales) {
+    final Map<String, Object> normalized = fields == null
+        ? new HashMap<String, Object>(resource.fields.size() * 2)
+        : new CompactMap(fields);
+    for (final Map.Entry<String, Object> field : resource.fields.entrySet()) {
+      final Object value = field.getValue();
+      if (oneLocale && value == null) {
         continue;
-      } else if (resourceContainsLocaleMap(resource, value)) {
-        fields.put(key, value);
-      } else {
-        Map<String, Object> map = new HashMap<>();
+      }
+
+      if (oneLocale && !resourceContainsLocaleMap(resource, value)) {
+        final Map<String, Object> map = locales == null
+            ? new HashMap<String, Object>()
+            : new CompactMap(locales.single(resource.defaultLocale));
         map.put(resource.defaultLocale, value);
-        fields.put(key, map);
+        normalized.put(field.getKey(), map);
+      } else if (value instanceof Map && locales != null) {
+        normalized.put(field.getKey(), localeMap((Map<String, Object>) value, locales));
+      } else {
+        normalized.put(field.getKey(), value);
       }
     }
-    resource.fields = fields;
+    resource.fields = normalized;
+  }
+
+  private static Map<String, Object> localeMap(Map<String, Object> values, KeySlots locales) {
+    if (values.size() == 1) {
+      final String locale = values.keySet().iterator().next();
+      return new CompactMap(locales.single(locale), values);
+    }
+    return new CompactMap(locales, values);
   }
 
   private static boolean resourceContainsLocaleMap(LocalizedResource resource, Object value) {
@@ -293,22 +447,15 @@ public final class ResourceUtils {
         && ((Map) value).containsKey(resource.defaultLocale);
   }
 
-  static void setRawFields(ArrayResource array) {
-    for (CDAAsset asset : array.assets().values()) {
-      setRawFields(asset);
-    }
-    for (CDAEntry entry : array.entries().values()) {
-      setRawFields(entry);
-    }
-  }
-
-  @SuppressWarnings("unchecked")
-  private static void setRawFields(LocalizedResource resource) {
-    Map<String, Object> rawFields = new HashMap<>();
-    for (String key : resource.fields.keySet()) {
-      Map<String, Object> map = new HashMap<>((Map<String, ?>) resource.fields.get(key));
-      rawFields.put(key, map);
-    }
-    resource.rawFields = rawFields;
+  /**
+   * Remember the current fields as raw fields of the given resource.
+   * <p>
+   * Nothing is copied here: {@link LocalizedResource#detachField(String)} copies a field once it
+   * gets changed by resolving links or rich text, all other fields stay shared.
+   *
+   * @param resource the resource to be updated.
+   */
+  static void setRawFields(LocalizedResource resource) {
+    resource.rawFields = resource.fields;
   }
 }
@@ -0,0 +1,60 @@
+package com.contentful.java.cda;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.functions.Action;
+import io.reactivex.rxjava3.functions.Supplier;
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Coalesces concurrent requests for the same key into one request in flight.
+ * <p>
+ * The first subscriber of a key starts the request, all subscribers arriving while it is still
+ * running share its result (or error). Once the request terminated the key is free again, so
+ * later subscribers start a new request.
+ *
+ * @param <K> the type of the keys identifying requests.
+ */
+final class SingleFlight<K> {
+  private final ConcurrentMap<K, Flowable<?>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Create a flowable sharing the request of the given key with all concurrent subscribers.
+   *
+   * @param key    identifies the request.
+   * @param source the request, only subscribed to if no request of this key is in flight.
+   * @param <T>    the type of the result.
+   * @return a flowable running or joining the request on subscription.
+   */
+  <T> Flowable<T> run(final K key, final Flowable<T> source) {
+    return Flowable.defer(new Supplier<Publisher<T>>() {
+      @SuppressWarnings("unchecked")
+      @Override public Publisher<T> get() {
+        final AtomicReference<Flowable<T>> self = new AtomicReference<>();
+        final Flowable<T> flight = source
+            .doFinally(new Action() {
+              @Override public void run() {
+                // only remove this flight, not a newer one registered under the same key
+                inFlight.remove(key, self.get());
+              }
+            })
+            .cache();
+        self.set(flight);
+
+        final Flowable<?> running = inFlight.putIfAbsent(key, flight);
+        return running == null ? flight : (Flowable<T>) running;
+      }
+    });
+  }
+
+  /**
+   * @param key the key of the request.
+   * @return true if a request of the given key is currently in flight.
+   */
+  boolean isInFlight(K key) {
+    return inFlight.containsKey(key);
+  }
+}
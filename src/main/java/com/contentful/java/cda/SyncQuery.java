@@ -1,7 +1,9 @@
 package com.contentful.java.cda;
 
 import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.functions.Consumer;
 import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.processors.UnicastProcessor;
 import org.reactivestreams.Publisher;
 import retrofit2.Response;
 
@@ -38,29 +40,12 @@ public class SyncQuery {
    * @return {@link Flowable} instance.
    */
   public Flowable<SynchronizedSpace> observe() {
-    final String token;
-    if (space != null) {
-      String nextSyncUrl = space.nextSyncUrl();
-      if (nextSyncUrl == null) {
-        throw new IllegalArgumentException("Provided space for synchronization is corrupt.");
-      } else {
-        token = Util.queryParam(space.nextSyncUrl(), "sync_token");
-      }
-    } else {
-      token = syncToken;
-    }
+    final String token = token();
     return client.cacheAll(true)
             .flatMap(new Function<Cache, Publisher<Response<SynchronizedSpace>>>() {
                        @Override
                        public Publisher<Response<SynchronizedSpace>> apply(Cache cache) {
-                         return client.service.sync(
-                                 client.spaceId,
-                                 client.environmentId,
-                                 initial ? initial : null,
-                                 token,
-                                 initial && type != null ? type.getName() : null,
-                                 initial && type != null ? type.getContentType() : null,
-                                 limit);
+                         return firstPage(token);
                        }
                      }
             ).map(
@@ -71,9 +56,151 @@ public class SyncQuery {
                         return ResourceFactory.sync(synchronizedSpace, space, client);
                       }
                     }
+            ).flatMap(
+                    new Function<SynchronizedSpace, Publisher<SynchronizedSpace>>() {
+                      @Override
+                      public Publisher<SynchronizedSpace> apply(final SynchronizedSpace result) {
+                        return client.cacheTypesWithIds(ResourceUtils.missingContentTypeIds(
+                                ResourceFactory.unresolvedEntries(result), client.cache)
+                        ).map(new Function<Cache, SynchronizedSpace>() {
+                          @Override
+                          public SynchronizedSpace apply(Cache cache) {
+                            invalidateQueryCache(result);
+                            ResourceFactory.resolveSync(result, client);
+                            return result;
+                          }
+                        });
+                      }
+                    }
+            );
+  }
+
+  /**
+   * Returns an {@link Flowable} emitting every page of this sync, as soon as it got fetched.
+   * <p>
+   * Pages are requested on demand, fetching at most one page ahead of the subscriber, so a slow
+   * subscriber does not pile up pages in memory. Nothing blocks waiting for a page: like all
+   * requests of this client, pages get fetched on the subscribing thread, unless subscribed on
+   * another scheduler, see {@link ObserveQuery}.
+   * Every page contains the assets and entries of its own items, localized, mapped by id and with
+   * their content types set, as well as the ids deleted in this page. Links are <b>not</b>
+   * resolved, since they may point to resources of other pages or of previous syncs: use
+   * {@link #observe()} for one completely resolved space. Only the last page provides the
+   * {@link SynchronizedSpace#nextSyncUrl()} to continue syncing from.
+   *
+   * @return {@link Flowable} instance, emitting one {@link SynchronizedSpace} per page.
+   */
+  public Flowable<SynchronizedSpace> observePages() {
+    final String token = token();
+    return client.cacheAll(true)
+            .concatMap(new Function<Cache, Publisher<SynchronizedSpace>>() {
+                         @Override
+                         public Publisher<SynchronizedSpace> apply(Cache cache) {
+                           return pages(firstPage(token));
+                         }
+                       }
             );
   }
 
+  /**
+   * Fetch the page of the given request and all pages following it, one after another.
+   * <p>
+   * The request of every next page gets queued once the page before got emitted.
+   */
+  private Flowable<SynchronizedSpace> pages(final Flowable<Response<SynchronizedSpace>> first) {
+    final UnicastProcessor<Flowable<Response<SynchronizedSpace>>> requests =
+            UnicastProcessor.create();
+    requests.onNext(first);
+    return requests
+            .concatMap(new Function<Flowable<Response<SynchronizedSpace>>,
+                    Publisher<SynchronizedSpace>>() {
+                         @Override
+                         public Publisher<SynchronizedSpace> apply(
+                                 Flowable<Response<SynchronizedSpace>> request) {
+                           return request.concatMap(new PageProcessor());
+                         }
+                       }, 1
+            ).doOnNext(new Consumer<SynchronizedSpace>() {
+              @Override
+              public void accept(SynchronizedSpace page) {
+                final String nextPageUrl = page.nextPageUrl();
+                if (nextPageUrl == null) {
+                  requests.onComplete();
+                } else {
+                  requests.onNext(nextPage(Util.queryParam(nextPageUrl, "sync_token")));
+                }
+              }
+            });
+  }
+
+  /**
+   * Maps one page on its own, once the content types of all of its entries are cached.
+   */
+  private class PageProcessor
+          implements Function<Response<SynchronizedSpace>, Publisher<SynchronizedSpace>> {
+    @Override
+    public Publisher<SynchronizedSpace> apply(Response<SynchronizedSpace> response) {
+      final SynchronizedSpace page = ResourceFactory.syncPage(response, client);
+      return client.cacheTypesWithIds(
+              ResourceUtils.missingContentTypeIds(page.entries().values(), client.cache)
+      ).map(new Function<Cache, SynchronizedSpace>() {
+        @Override
+        public SynchronizedSpace apply(Cache cache) {
+          for (CDAEntry entry : page.entries().values()) {
+            ResourceUtils.ensureCachedContentType(entry, client);
+          }
+          return page;
+        }
+      });
+    }
+  }
+
+  /**
+   * Drop the cached query results affected by the given delta sync, before it gets resolved.
+   */
+  private void invalidateQueryCache(SynchronizedSpace result) {
+    if (client.queryCache != null && result.unresolvedEntries != null) {
+      client.queryCache.invalidate(result.unresolvedAssets,
+              ResourceFactory.unresolvedEntries(result),
+              result.deletedAssets(), result.deletedEntries());
+    }
+  }
+
+  private String token() {
+    if (space != null) {
+      String nextSyncUrl = space.nextSyncUrl();
+      if (nextSyncUrl == null) {
+        throw new IllegalArgumentException("Provided space for synchronization is corrupt.");
+      } else {
+        return Util.queryParam(space.nextSyncUrl(), "sync_token");
+      }
+    } else {
+      return syncToken;
+    }
+  }
+
+  private Flowable<Response<SynchronizedSpace>> firstPage(String token) {
+    return client.service.sync(
+            client.spaceId,
+            client.environmentId,
+            initial ? initial : null,
+            token,
+            initial && type != null ? type.getName() : null,
+            initial && type != null ? type.getContentType() : null,
+            limit);
+  }
+
+  private Flowable<Response<SynchronizedSpace>> nextPage(String token) {
+    return client.service.sync(
+            client.spaceId,
+            client.environmentId,
+            null,
+            token,
+            null,
+            null,
+            null);
+  }
+
   /**
    * Invokes the request to sync (blocking).
    *
@@ -0,0 +1,29 @@
+package com.contentful.java.cda;
+
+import java.io.IOException;
+
+/**
+ * Persists a {@link SynchronizedSpace} between runs of an application.
+ * <p>
+ * A space loaded from a store can be handed to {@link CDAClient#sync(SynchronizedSpace)}, which
+ * resumes syncing from its {@link SynchronizedSpace#nextSyncUrl()} instead of starting over.
+ *
+ * @see FileSyncStore
+ */
+public interface SyncStore {
+  /**
+   * Persist the given space, replacing any space saved before.
+   *
+   * @param space the result of a sync.
+   * @throws IOException if the space could not be written.
+   */
+  void save(SynchronizedSpace space) throws IOException;
+
+  /**
+   * Load the space saved last.
+   *
+   * @return the space saved, null if no space was saved yet.
+   * @throws IOException if the saved space could not be read.
+   */
+  SynchronizedSpace load() throws IOException;
+}
@@ -1,5 +1,7 @@
 package com.contentful.java.cda;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -15,6 +17,21 @@ public class SynchronizedSpace extends ArrayResource {
 
   Set<String> deletedEntries;
 
+  /** Assets of a delta sync still to be resolved, null if all of them need to be resolved. */
+  transient List<CDAAsset> unresolvedAssets;
+
+  /** Entries of a delta sync still to be resolved, null if all of them need to be resolved. */
+  transient List<CDAEntry> unresolvedEntries;
+
+  /** Ids of the fields of unchanged entries linking to resources changed by a delta sync. */
+  transient Map<String, Set<String>> relinkedFields;
+
+  /** Links between the resources of this space, null after deserialization. */
+  transient LinkIndex linkIndex;
+
+  /** Reads the resources not read yet of a space loaded by a {@link FileSyncStore}, or null. */
+  transient FileSyncStore.Loader loader;
+
   /**
    * @return url to the next sync.
    */
@@ -42,4 +59,12 @@ public class SynchronizedSpace extends ArrayResource {
   public Set<String> deletedEntries() {
     return deletedEntries;
   }
+
+  /**
+   * @return index of all links between the resources of this space, null if this space was
+   * deserialized instead of being synced.
+   */
+  public LinkIndex linkIndex() {
+    return linkIndex;
+  }
 }
@@ -0,0 +1,193 @@
+package com.contentful.java.cda;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps instances created by {@link TransformQuery}s in memory, so transforming an unchanged
+ * entry again returns the instance created before.
+ * <p>
+ * Instances are keyed by model class, locale, selected fields, entry id and {@code sys.revision}
+ * of the entry, and remember the revisions of all linked entries and assets they were built from,
+ * as well as the links not part of the result they were built from, i.e. not included. An
+ * instance is only reused if all of those still have the same revision in the current result, and
+ * links missing before are still missing, so include depths do not share instances. It is evicted
+ * least recently used first once the configured number of instances is exceeded. Instances of
+ * entries linking each other in a cycle are not kept.
+ * <p>
+ * Kept instances are returned to every query transforming the same entry and therefore must not
+ * be modified.
+ */
+public class TransformCache {
+  private static final String ATTRIBUTE_REVISION = "revision";
+
+  private static final String ASSET_PREFIX = CDAType.ASSET.name() + ':';
+
+  private final int maxSize;
+
+  private final Map<String, Instance> instances = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * One kept instance.
+   */
+  static final class Instance {
+    final Object model;
+
+    /**
+     * Revisions of all resources the model was built from, by {@link #dependency}. Null for
+     * resources linked to, but missing from the result.
+     */
+    final Map<String, Object> revisions;
+
+    Instance(Object model, Map<String, Object> revisions) {
+      this.model = model;
+      this.revisions = Collections.unmodifiableMap(revisions);
+    }
+  }
+
+  /**
+   * Create a cache.
+   *
+   * @param maxSize how many instances to keep at most.
+   * @throws IllegalArgumentException if maxSize is not positive.
+   */
+  TransformCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException(
+          "Cache size must be positive, but was " + maxSize + ".");
+    }
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @param resource an entry or asset.
+   * @return the revision of the resource, null if it has none.
+   */
+  static Object revision(CDAResource resource) {
+    return resource.getAttribute(ATTRIBUTE_REVISION);
+  }
+
+  /**
+   * @param resource an entry or asset a model was built from.
+   * @return the key of the resource in {@link Instance#revisions}.
+   */
+  static String dependency(CDAResource resource) {
+    return dependency(resource.type(), resource.id());
+  }
+
+  /**
+   * @param type the type of an entry or asset linked to.
+   * @param id   the id of the linked resource.
+   * @return the key of the resource in {@link Instance#revisions}.
+   */
+  static String dependency(CDAType type, String id) {
+    return type.name() + ':' + id;
+  }
+
+  /**
+   * Find the instance of the given entry, if all resources it was built from are unchanged.
+   *
+   * @param type      the model class.
+   * @param entry     the entry to be transformed, having a revision.
+   * @param selection the fields selected by the query, null if all of them.
+   * @param current   the result the entry is part of, to compare revisions with.
+   * @return the kept instance, null if there is none or it is outdated.
+   */
+  synchronized Instance get(Class<?> type, CDAEntry entry, String selection,
+      ArrayResource current) {
+    final String key = key(type, entry, selection);
+    final Instance instance = instances.get(key);
+    if (instance == null || !upToDate(instance, current)) {
+      if (instance != null) {
+        instances.remove(key);
+      }
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return instance;
+  }
+
+  /**
+   * Keep the instance built from the given entry.
+   *
+   * @param type      the model class.
+   * @param entry     the entry transformed, having a revision.
+   * @param selection the fields selected by the query, null if all of them.
+   * @param model     the instance built.
+   * @param revisions the revisions of all resources the instance was built from.
+   */
+  synchronized void put(Class<?> type, CDAEntry entry, String selection, Object model,
+      Map<String, Object> revisions) {
+    instances.put(key(type, entry, selection), new Instance(model, revisions));
+
+    final Iterator<Instance> eldest = instances.values().iterator();
+    while (instances.size() > maxSize && eldest.hasNext()) {
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Drop all kept instances.
+   */
+  public synchronized void clear() {
+    instances.clear();
+  }
+
+  /**
+   * @return how many entries were not transformed again.
+   */
+  public long hitCount() {
+    return hits.get();
+  }
+
+  /**
+   * @return how many entries were looked up but had to be transformed.
+   */
+  public long missCount() {
+    return misses.get();
+  }
+
+  /**
+   * @return how many instances are currently kept.
+   */
+  public synchronized int size() {
+    return instances.size();
+  }
+
+  /**
+   * @return how many instances are kept at most.
+   */
+  public int maxSize() {
+    return maxSize;
+  }
+
+  private static String key(Class<?> type, CDAEntry entry, String selection) {
+    return type.getName() + '/' + entry.defaultLocale + '/' + entry.getAttribute("locale")
+        + '/' + selection + '/' + entry.id() + '@' + revision(entry);
+  }
+
+  private static boolean upToDate(Instance instance, ArrayResource current) {
+    for (final Map.Entry<String, Object> dependency : instance.revisions.entrySet()) {
+      final String key = dependency.getKey();
+      final String id = key.substring(key.indexOf(':') + 1);
+      final CDAResource resource = key.startsWith(ASSET_PREFIX)
+          ? current.assets().get(id)
+          : current.entries().get(id);
+      final Object revision = dependency.getValue();
+      if (revision == null ? resource != null
+          : resource == null || !revision.equals(revision(resource))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
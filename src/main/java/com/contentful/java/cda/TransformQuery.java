@@ -1,7 +1,5 @@
 package com.contentful.java.cda;
 
-import com.google.code.regexp.Matcher;
-import com.google.code.regexp.Pattern;
 import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.functions.Function;
 import io.reactivex.rxjava3.functions.Predicate;
@@ -10,12 +8,15 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
-import java.lang.reflect.Field;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This query will tranform an incoming contentful entry to a custom type.
@@ -90,8 +91,7 @@ public class TransformQuery<Transformed>
   }
   private final String contentTypeId;
 
-  private final Map<String, Object> instanceCache = new HashMap<>();
-  private final Map<String, Class<?>> customClassByContentTypeIdCache = new HashMap<>();
+  private final Map<String, Class<?>> customClassByContentTypeIdCache;
 
   /**
    * Construct a transform query.
@@ -102,42 +102,41 @@ public class TransformQuery<Transformed>
   TransformQuery(Class<Transformed> type, CDAClient client) {
     super(type, client);
 
-    ContentfulEntryModel model = type.getAnnotation(ContentfulEntryModel.class);
-    if (model == null) {
-      throw new IllegalArgumentException("Cannot transform a class without ContentfulEntryModel "
-          + "annotation.");
-    }
-
+    final ModelBinder binder = ModelBinder.of(type, client.modelBinders);
     try {
-      type.newInstance();
-    } catch (Exception e) {
+      binder.newInstance();
+    } catch (IllegalStateException e) {
       throw new IllegalArgumentException("Cannot create new instance of custom model.", e);
     }
 
-    contentTypeId = model.value();
+    contentTypeId = binder.contentTypeId;
     withContentType(contentTypeId);
 
-    for (final Field field : type.getDeclaredFields()) {
-      final ContentfulField annotation = field.getAnnotation(ContentfulField.class);
-      if (annotation != null) {
-        parseFieldAnnotation(field, annotation);
-      } else {
-        final ContentfulSystemField systemField = field.getAnnotation(ContentfulSystemField.class);
-        if (systemField != null) {
-          parseSystemFieldAnnotation(field, systemField);
-        } else {
-          final ContentfulMetadata metadata = field.getAnnotation(ContentfulMetadata.class);
-          if (metadata != null) {
-            parseMetadataAnnotation(metadata);
-          }
-        }
+    for (final ModelBinder.Binding binding : binder.bindings) {
+      if (binding.inherited) {
+        continue;
+      }
+      switch (binding.source) {
+        case FIELD:
+          select("fields." + binding.key);
+          break;
+        case SYSTEM_FIELD:
+          select("sys." + binding.key);
+          break;
+        default:
+          select(binding.key);
+          break;
       }
     }
 
-    createCustomClassCache(type);
+    final Map<String, Class<?>> customClasses = new HashMap<>();
+    createCustomClassCache(type, customClasses, client.modelBinders);
+    customClassByContentTypeIdCache = Collections.unmodifiableMap(customClasses);
   }
 
-  private void createCustomClassCache(Class<?> seedType) {
+  private static void createCustomClassCache(Class<?> seedType,
+      Map<String, Class<?>> customClassByContentTypeIdCache,
+      ConcurrentMap<Class<?>, ModelBinder> binders) {
     final ContentfulEntryModel seedAnnotation = seedType.getAnnotation(ContentfulEntryModel.class);
     if (seedAnnotation == null) {
       throw new IllegalStateException("Custom class has to be annotated with "
@@ -156,89 +155,12 @@ public class TransformQuery<Transformed>
       }
     }
 
-    final String contentTypeId = seedAnnotation.value();
-    customClassByContentTypeIdCache.put(contentTypeId, seedType);
-
-    // loop through fields to find another custom content type
-    for (final Field field : seedType.getDeclaredFields()) {
-      if (isFieldACollection(field)) {
-        final Class<?> itemType = getCollectionFieldEntryType(field);
-        if (itemType == null) {
-          // couldn't derive generic type from Collection
-          continue;
-        }
-
-        final ContentfulEntryModel itemAnnotation = itemType.getAnnotation(
-            ContentfulEntryModel.class
-        );
-        if (itemAnnotation != null) {
-          createCustomClassCache(itemType);
-        }
-      } else {
-        final ContentfulEntryModel fieldCustomAnnotation = field.getType().getAnnotation(
-            ContentfulEntryModel.class
-        );
-        if (fieldCustomAnnotation != null) {
-          createCustomClassCache(field.getType());
-        }
-      }
-    }
-  }
-
-  private Class<?> getCollectionFieldEntryType(Field field) {
-    // This method guesses the type of a generic collection by inspecting its string representation.
-    // This can break with new JVM installations and in this case it is recommended to either update
-    // this implementation or, even better, provide possible types in one of the top level content
-    // type annotations.
-
-    final boolean wasAccessible = field.isAccessible();
-    try {
-      field.setAccessible(true);
-      final String genericType = field.getGenericType().toString();
-      final String genericSubTypeRegex = "^[.\\p{Alpha}]+<(?<subtype>.+)>$";
-      final Pattern pattern = Pattern.compile(genericSubTypeRegex);
-      final Matcher matcher = pattern.matcher(genericType);
-      if (matcher.matches()) {
-        return this.getClass().getClassLoader().loadClass(matcher.group("subtype"));
-      } else {
-        return null;
-      }
-    } catch (Throwable t) {
-      // Could not find the type of the elements of the list at "field".
-      return null;
-    } finally {
-      field.setAccessible(wasAccessible);
-    }
-  }
-
-  private boolean isFieldACollection(Field field) {
-    return Collection.class.isAssignableFrom(field.getType());
-  }
-
-  private void parseFieldAnnotation(Field field, ContentfulField annotation) {
-    final String name;
-    if (annotation.value().isEmpty()) {
-      name = field.getName();
-    } else {
-      name = annotation.value();
-    }
-
-    select("fields." + name);
-  }
+    customClassByContentTypeIdCache.put(seedAnnotation.value(), seedType);
 
-  private void parseSystemFieldAnnotation(Field field, ContentfulSystemField annotation) {
-    final String name;
-    if (annotation.value().isEmpty()) {
-      name = field.getName();
-    } else {
-      name = annotation.value();
+    // follow fields to other custom content types
+    for (final Class<?> referenced : ModelBinder.of(seedType, binders).referencedModels) {
+      createCustomClassCache(referenced, customClassByContentTypeIdCache, binders);
     }
-
-    select("sys." + name);
-  }
-
-  private void parseMetadataAnnotation(ContentfulMetadata annotation) {
-    select(annotation.value());
   }
 
   /**
@@ -252,22 +174,7 @@ public class TransformQuery<Transformed>
    */
   public Flowable<Transformed> one(String id) {
     try {
-      return baseQuery()
-          .one(id)
-          .filter(new Predicate<CDAEntry>() {
-            @Override
-            public boolean test(CDAEntry entry) {
-              return entry.contentType().id()
-                  .equals(contentTypeId);
-            }
-          })
-          .map(new Function<CDAEntry, Transformed>() {
-            @Override
-            @SuppressWarnings("unchecked")
-            public Transformed apply(CDAEntry entry) throws Exception {
-              return (Transformed) TransformQuery.this.transform(entry);
-            }
-          });
+      return observeOne(id);
     } catch (NullPointerException e) {
       throw new CDAResourceNotFoundException(CDAEntry.class, id);
     }
@@ -283,18 +190,7 @@ public class TransformQuery<Transformed>
    * @throws IllegalStateException        if the transformed class could not be accessed.
    */
   public CDACallback<Transformed> one(String id, CDACallback<Transformed> callback) {
-    return Callbacks.subscribeAsync(
-        baseQuery()
-            .one(id)
-            .filter(new Predicate<CDAEntry>() {
-              @Override
-              public boolean test(CDAEntry entry) {
-                return entry.contentType().id().equals(contentTypeId);
-              }
-            })
-            .map(this::transform),
-        callback,
-        client);
+    return Callbacks.subscribeAsync(observeOne(id), callback, client);
   }
 
   /**
@@ -311,17 +207,8 @@ public class TransformQuery<Transformed>
         .map(
             new Function<CDAArray, Collection<Transformed>>() {
               @Override
-              @SuppressWarnings("unchecked")
               public Collection<Transformed> apply(CDAArray array) {
-                final ArrayList<Transformed> result = new ArrayList<>(array.total());
-
-                for (final CDAResource resource : array.items) {
-                  if (resource instanceof CDAEntry
-                      && ((CDAEntry) resource).contentType().id().equals(contentTypeId)) {
-                    result.add((Transformed) TransformQuery.this.transform((CDAEntry) resource));
-                  }
-                }
-                return result;
+                return transformAll(array);
               }
             }
         );
@@ -342,19 +229,8 @@ public class TransformQuery<Transformed>
             .map(
                 new Function<CDAArray, List<Transformed>>() {
                   @Override
-                  @SuppressWarnings("unchecked")
                   public List<Transformed> apply(CDAArray array) {
-                    final ArrayList<Transformed> result = new ArrayList<>(array.total());
-
-                    for (final CDAResource resource : array.items) {
-                      if (resource instanceof CDAEntry
-                          && ((CDAEntry) resource).contentType().id().equals(contentTypeId)) {
-                        result.add((Transformed) TransformQuery.this.transform(
-                            (CDAEntry) resource)
-                        );
-                      }
-                    }
-                    return result;
+                    return transformAll(array);
                   }
                 }
             ),
@@ -366,172 +242,266 @@ public class TransformQuery<Transformed>
     return client.observe(CDAEntry.class).where(params);
   }
 
-  private Object transform(CDAEntry entry) {
-    final Object result;
+  private Flowable<Transformed> observeOne(final String id) {
+    return baseQuery()
+        .where("sys.id", id)
+        .all()
+        .filter(new Predicate<CDAArray>() {
+          @Override
+          public boolean test(CDAArray array) {
+            return entryOf(array, id).contentType().id().equals(contentTypeId);
+          }
+        })
+        .map(new Function<CDAArray, Transformed>() {
+          @Override
+          @SuppressWarnings("unchecked")
+          public Transformed apply(CDAArray array) {
+            return (Transformed) new Transformation(array).transform(entryOf(array, id));
+          }
+        });
+  }
+
+  private static CDAEntry entryOf(CDAArray array, String id) {
+    final CDAEntry entry = array.entries().get(id);
+    if (array.items().isEmpty() || entry == null) {
+      throw new CDAResourceNotFoundException(CDAEntry.class, id);
+    }
+    return entry;
+  }
 
-    if (!customClassByContentTypeIdCache.containsKey(entry.contentType().id())) {
-      return entry;
+  @SuppressWarnings("unchecked")
+  private List<Transformed> transformAll(CDAArray array) {
+    final ArrayList<Transformed> result = new ArrayList<>(array.total());
+    final Transformation transformation = new Transformation(array);
+
+    for (final CDAResource resource : array.items) {
+      if (resource instanceof CDAEntry
+          && ((CDAEntry) resource).contentType().id().equals(contentTypeId)) {
+        result.add((Transformed) transformation.transform((CDAEntry) resource));
+      }
     }
+    return result;
+  }
+
+  /**
+   * Transforms the entries of one result.
+   * <p>
+   * Every entry gets transformed once per result, so links between entries, even cyclic ones,
+   * point to the same instances. With a {@link TransformCache} configured on the client, instances
+   * of entries outside of cycles get shared with later results, as long as neither the entry nor
+   * any resource linked from it changed its revision.
+   */
+  private final class Transformation {
+    private final CDAArray array;
+
+    private final TransformCache shared;
 
-    final Class<?> type = customClassByContentTypeIdCache.get(entry.contentType().id());
+    private final String selection = params.get(PARAMETER_SELECT);
 
-    if (instanceCache.containsKey(entry.id())) {
-      result = instanceCache.get(entry.id());
-    } else {
+    private final Map<String, Object> instances = new HashMap<>();
+
+    /**
+     * Revisions of all resources the instance of an entry was built from, by entry id. Null while
+     * the instance is being built, or if it cannot be shared.
+     */
+    private final Map<String, Map<String, Object>> revisions = new HashMap<>();
+
+    /** The instances currently being built, innermost first. */
+    private final Deque<Building> building = new ArrayDeque<>();
+
+    Transformation(CDAArray array) {
+      this.array = array;
+      this.shared = client.transformCache;
+    }
+
+    Object transform(CDAEntry entry) {
+      final Class<?> type = customClassByContentTypeIdCache.get(entry.contentType().id());
+      if (type == null) {
+        dependOn(null);
+        return entry;
+      }
+
+      Object result = instances.get(entry.id());
+      if (result != null) {
+        dependOn(revisions.get(entry.id()));
+        return result;
+      }
+
+      final Object revision = TransformCache.revision(entry);
+      if (shared != null && revision != null) {
+        final TransformCache.Instance instance = shared.get(type, entry, selection, array);
+        if (instance != null) {
+          instances.put(entry.id(), instance.model);
+          revisions.put(entry.id(), instance.revisions);
+          dependOn(instance.revisions);
+          return instance.model;
+        }
+      }
+
+      final ModelBinder binder;
       try {
-        result = type.newInstance();
-      } catch (Exception e) {
+        binder = ModelBinder.of(type, client.modelBinders);
+        result = binder.newInstance();
+      } catch (IllegalArgumentException | IllegalStateException e) {
         throw new IllegalStateException("Cannot transform entry " + entry + "  to type "
             + type.getCanonicalName(), e);
       }
+      instances.put(entry.id(), result);
 
-      instanceCache.put(entry.id(), result);
-
-      for (final Field field : type.getDeclaredFields()) {
-        final ContentfulField annotation = field.getAnnotation(ContentfulField.class);
-        if (annotation != null) {
-          transformFieldAnnotation(entry, result, field, annotation);
-        } else {
-          final ContentfulSystemField systemField =
-              field.getAnnotation(ContentfulSystemField.class);
-          if (systemField != null) {
-            transformSystemFieldAnnotation(entry, result, field, systemField);
-          } else {
-            final ContentfulMetadata metadata =
-                    field.getAnnotation(ContentfulMetadata.class);
-            if (metadata != null) {
-              transformMetadataAnnotation(entry, result, field, metadata);
-            }
+      final Building current = new Building();
+      current.revisions.put(TransformCache.dependency(entry), revision);
+      current.shareable = revision != null;
+      building.push(current);
+      try {
+        for (final ModelBinder.Binding binding : binder.bindings) {
+          switch (binding.source) {
+            case FIELD:
+              transformField(entry, result, binding);
+              break;
+            case SYSTEM_FIELD:
+              set(result, binding, entry.getAttribute(binding.key),
+                  "Cannot set custom system field " + binding.key + ".");
+              break;
+            default:
+              set(result, binding, entry.metadata(), "Cannot set " + binding.key + ".");
+              break;
           }
         }
+      } finally {
+        building.pop();
       }
 
-      for (final Field field : type.getSuperclass().getDeclaredFields()) {
-        final ContentfulField annotation = field.getAnnotation(ContentfulField.class);
-        if (annotation != null) {
-          transformFieldAnnotation(entry, result, field, annotation);
-        } else {
-          final ContentfulSystemField systemField =
-                  field.getAnnotation(ContentfulSystemField.class);
-          if (systemField != null) {
-            transformSystemFieldAnnotation(entry, result, field, systemField);
-          } else {
-            final ContentfulMetadata metadata =
-                    field.getAnnotation(ContentfulMetadata.class);
-            if (metadata != null) {
-              transformMetadataAnnotation(entry, result, field, metadata);
-            }
-          }
-        }
+      final Map<String, Object> built = current.shareable ? current.revisions : null;
+      revisions.put(entry.id(), built);
+      dependOn(built);
+      if (built != null && shared != null) {
+        shared.put(type, entry, selection, result, built);
       }
+      return result;
     }
 
-    return result;
-  }
+    private void transformField(CDAEntry entry, Object result, ModelBinder.Binding binding) {
+      final String locale = binding.locale.isEmpty() ? entry.defaultLocale : binding.locale;
+      final Object value = entry.getField(locale, binding.key);
 
-  private void transformFieldAnnotation(
-      CDAEntry entry,
-      Object result,
-      Field field,
-      ContentfulField annotation) {
-    final boolean wasAccessible = field.isAccessible();
-    field.setAccessible(true);
-
-    final String key;
-    if (annotation.value().isEmpty()) {
-      key = field.getName();
-    } else {
-      key = annotation.value();
-    }
-
-    final String locale;
-    if (annotation.locale().isEmpty()) {
-      locale = entry.defaultLocale;
-    } else {
-      locale = annotation.locale();
-    }
+      if (value == null || value instanceof Collection) {
+        dependOnMissingLinks(entry, binding.key);
+      }
 
-    try {
-      final Object value = entry.getField(locale, key);
+      final Object transformed;
       if (value instanceof CDAEntry) {
-        final CDAEntry fieldEntry = (CDAEntry) value;
-        if (!instanceCache.containsKey(fieldEntry.id())) {
-          transform(fieldEntry);
-        }
-
-        try {
-          field.set(result, instanceCache.get(fieldEntry.id()));
-        } catch (IllegalArgumentException e) {
-          // Field doesn't exist on the result object, skip it and continue
-        }
+        transformed = transform((CDAEntry) value);
       } else if (value instanceof Collection) {
-        @SuppressWarnings("unchecked") final Collection<Object> collection
-                = (Collection<Object>) value;
-
+        final Collection<?> collection = (Collection<?>) value;
         final ArrayList<Object> transformedList = new ArrayList<>(collection.size());
         for (final Object element : collection) {
           if (element instanceof CDAEntry) {
-            final CDAEntry collectionEntry = (CDAEntry) element;
-            if (customClassByContentTypeIdCache.containsKey(collectionEntry.contentType().id())) {
-              transformedList.add(transform(collectionEntry));
-            } else {
-              transformedList.add(element);
-            }
+            transformedList.add(transform((CDAEntry) element));
           } else {
+            dependOnAsset(element);
             transformedList.add(element);
           }
         }
-        try {
-          field.set(result, transformedList);
-        } catch (IllegalArgumentException e) {
-          // Field doesn't exist on the result object, skip it and continue
-        }
+        transformed = transformedList;
       } else {
-        try {
-          field.set(result, value);
-        } catch (IllegalArgumentException e) {
-          // Field doesn't exist on the result object, skip it and continue
-        }
+        dependOnAsset(value);
+        transformed = value;
+      }
+
+      try {
+        binding.field.set(result, transformed);
+      } catch (IllegalArgumentException e) {
+        // Field doesn't match the type of the value, skip it and continue
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException("Cannot set custom field " + binding.key + ".");
       }
-    } catch (IllegalAccessException e) {
-      throw new IllegalStateException("Cannot set custom field " + key + ".");
-    } finally {
-      field.setAccessible(wasAccessible);
     }
-  }
 
-  private void transformSystemFieldAnnotation(CDAEntry entry, Object result, Field field,
-                                              ContentfulSystemField annotation) {
-    if (!field.isAccessible()) {
-      field.setAccessible(true);
+    /**
+     * Record that the instance being built references another one.
+     *
+     * @param dependencies the revisions the other instance was built from, null if it cannot be
+     *                     shared.
+     */
+    private void dependOn(Map<String, Object> dependencies) {
+      final Building current = building.peek();
+      if (current == null) {
+        return;
+      }
+      if (dependencies == null) {
+        current.shareable = false;
+      } else {
+        current.revisions.putAll(dependencies);
+      }
     }
 
-    final String key;
-    if (annotation.value().isEmpty()) {
-      key = field.getName();
-    } else {
-      key = annotation.value();
+    /**
+     * Record the links of a field to resources not part of the result, i.e. not included: the
+     * instance must be built again once they are.
+     */
+    private void dependOnMissingLinks(CDAEntry entry, String key) {
+      final Object raw = entry.rawFields() == null ? null : entry.rawFields().get(key);
+      if (!(raw instanceof Map)) {
+        return;
+      }
+      for (final Object localized : ((Map<?, ?>) raw).values()) {
+        if (localized instanceof Collection) {
+          for (final Object link : (Collection<?>) localized) {
+            dependOnMissingLink(link);
+          }
+        } else {
+          dependOnMissingLink(localized);
+        }
+      }
     }
 
-    try {
-      field.set(result, entry.getAttribute(key));
-    } catch (IllegalAccessException e) {
-      throw new IllegalStateException("Cannot set custom system field " + key + ".");
+    private void dependOnMissingLink(Object link) {
+      if (!(link instanceof Map)) {
+        return;
+      }
+      final Object sys = ((Map<?, ?>) link).get("sys");
+      if (!(sys instanceof Map) || !"Link".equals(((Map<?, ?>) sys).get("type"))) {
+        return;
+      }
+
+      final Object linkType = ((Map<?, ?>) sys).get("linkType");
+      final Object id = ((Map<?, ?>) sys).get("id");
+      final CDAType type = "Asset".equals(linkType) ? CDAType.ASSET
+          : "Entry".equals(linkType) ? CDAType.ENTRY : null;
+      if (type != null && id instanceof String
+          && ResourceUtils.findLinkedResource(array, type, (String) id) == null) {
+        dependOn(Collections.singletonMap(TransformCache.dependency(type, (String) id), null));
+      }
     }
-  }
 
-  private void transformMetadataAnnotation(CDAEntry entry, Object result, Field field,
-                                              ContentfulMetadata annotation) {
-    if (!field.isAccessible()) {
-      field.setAccessible(true);
+    private void dependOnAsset(Object value) {
+      if (value instanceof CDAAsset) {
+        final CDAAsset asset = (CDAAsset) value;
+        final Object revision = TransformCache.revision(asset);
+        dependOn(revision == null
+            ? null
+            : Collections.singletonMap(TransformCache.dependency(asset), revision));
+      }
     }
+  }
 
-    final String key = annotation.value();
+  /**
+   * An instance being built by a {@link Transformation}.
+   */
+  private static final class Building {
+    /** Revisions of all resources the instance references so far. */
+    final Map<String, Object> revisions = new HashMap<>();
+
+    /** False once the instance references a resource without revision, or an unfinished one. */
+    boolean shareable;
+  }
 
+  private static void set(Object result, ModelBinder.Binding binding, Object value,
+      String error) {
     try {
-      field.set(result, entry.metadata());
+      binding.field.set(result, value);
     } catch (IllegalAccessException e) {
-      throw new IllegalStateException("Cannot set " + key + ".");
+      throw new IllegalStateException(error);
     }
   }
 }
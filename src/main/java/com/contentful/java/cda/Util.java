@@ -2,6 +2,7 @@ package com.contentful.java.cda;
 
 import okhttp3.HttpUrl;
 
+import java.util.Collection;
 import java.util.Map;
 
 import static com.contentful.java.cda.CDAType.LOCALE;
@@ -115,4 +116,16 @@ final class Util {
     }
     return httpUrl.queryParameter(name);
   }
+
+  static String join(Collection<?> values) {
+    final StringBuilder builder = new StringBuilder();
+    String separator = "";
+    for (final Object value : values) {
+      builder.append(separator);
+      separator = ",";
+
+      builder.append(value);
+    }
+    return builder.toString();
+  }
 }
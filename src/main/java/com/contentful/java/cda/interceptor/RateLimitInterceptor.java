@@ -0,0 +1,177 @@
+package com.contentful.java.cda.interceptor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * This interceptor paces outgoing requests to stay within the rate limit of Contentful.
+ * <p>
+ * Requests take a token out of a bucket refilled continuously with the allowed number of requests
+ * per second, and wait for the next token once the bucket is empty. The
+ * {@code X-Contentful-RateLimit-Second-Limit} and {@code X-Contentful-RateLimit-Second-Remaining}
+ * headers of every response adjust the rate and the tokens left, so requests of other clients
+ * sharing the same token are taken into account.
+ * <p>
+ * A request answered with {@code 429 Too Many Requests} waits for
+ * {@code X-Contentful-RateLimit-Reset} seconds and gets sent again, up to the configured number
+ * of retries. This interceptor needs to be added after the {@link ErrorInterceptor}, so the error
+ * interceptor only sees the last response.
+ */
+public class RateLimitInterceptor implements Interceptor {
+  private static final String HEADER_SECOND_LIMIT = "X-Contentful-RateLimit-Second-Limit";
+
+  private static final String HEADER_SECOND_REMAINING = "X-Contentful-RateLimit-Second-Remaining";
+
+  private static final String HEADER_RESET = "X-Contentful-RateLimit-Reset";
+
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final int maxRetries;
+
+  private double requestsPerSecond;
+
+  private double tokens;
+
+  private long refilled;
+
+  private final AtomicLong throttled = new AtomicLong();
+
+  private final AtomicLong retries = new AtomicLong();
+
+  /**
+   * Create an interceptor allowing the given number of requests per second.
+   *
+   * @param requestsPerSecond how many requests to send per second at most, until the server
+   *                          reports a different limit.
+   * @param maxRetries        how often to repeat a request rejected by the rate limit.
+   * @throws IllegalArgumentException if requestsPerSecond is not positive or maxRetries is
+   *                                  negative.
+   */
+  public RateLimitInterceptor(int requestsPerSecond, int maxRetries) {
+    if (requestsPerSecond <= 0) {
+      throw new IllegalArgumentException(
+          "Requests per second must be positive, but were " + requestsPerSecond + ".");
+    }
+    if (maxRetries < 0) {
+      throw new IllegalArgumentException("Retries must not be negative, but were "
+          + maxRetries + ".");
+    }
+    this.requestsPerSecond = requestsPerSecond;
+    this.maxRetries = maxRetries;
+    this.tokens = requestsPerSecond;
+    this.refilled = System.nanoTime();
+  }
+
+  /**
+   * Wait for a token, send the request and retry it while it is rejected by the rate limit.
+   *
+   * @param chain the execution chain for the request.
+   * @return the first response not rejected, or the last one if retries are exhausted.
+   * @throws IOException in case of failure down the line, or if interrupted while waiting.
+   */
+  @Override public Response intercept(Chain chain) throws IOException {
+    final Request request = chain.request();
+    for (int attempt = 0; ; ++attempt) {
+      acquire();
+      final Response response = chain.proceed(request);
+      update(response);
+
+      if (response.code() != HTTP_TOO_MANY_REQUESTS || attempt >= maxRetries) {
+        return response;
+      }
+
+      response.close();
+      retries.incrementAndGet();
+      sleep(TimeUnit.SECONDS.toNanos(resetSeconds(response)));
+    }
+  }
+
+  /**
+   * @return how many requests had to wait for a token.
+   */
+  public long throttledCount() {
+    return throttled.get();
+  }
+
+  /**
+   * @return how many requests were sent again after being rejected by the rate limit.
+   */
+  public long retryCount() {
+    return retries.get();
+  }
+
+  /**
+   * @return how many requests per second are currently allowed.
+   */
+  public synchronized double requestsPerSecond() {
+    return requestsPerSecond;
+  }
+
+  private void acquire() throws IOException {
+    long wait;
+    synchronized (this) {
+      refill();
+      tokens -= 1;
+      wait = tokens < 0 ? (long) (-tokens / requestsPerSecond * NANOS_PER_SECOND) : 0;
+    }
+
+    if (wait > 0) {
+      throttled.incrementAndGet();
+      sleep(wait);
+    }
+  }
+
+  private synchronized void update(Response response) {
+    refill();
+    final int limit = parseHeader(response, HEADER_SECOND_LIMIT);
+    if (limit > 0) {
+      requestsPerSecond = limit;
+      tokens = Math.min(tokens, limit);
+    }
+
+    final int remaining = parseHeader(response, HEADER_SECOND_REMAINING);
+    if (remaining >= 0) {
+      tokens = Math.min(tokens, remaining);
+    }
+    if (response.code() == HTTP_TOO_MANY_REQUESTS) {
+      tokens = Math.min(tokens, 0);
+    }
+  }
+
+  private void refill() {
+    final long now = System.nanoTime();
+    tokens = Math.min(requestsPerSecond,
+        tokens + (now - refilled) * requestsPerSecond / NANOS_PER_SECOND);
+    refilled = now;
+  }
+
+  private static int resetSeconds(Response response) {
+    final int reset = parseHeader(response, HEADER_RESET);
+    return reset >= 0 ? reset : 1;
+  }
+
+  private static int parseHeader(Response response, String name) {
+    try {
+      return Integer.parseInt(response.header(name));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static void sleep(long nanos) throws IOException {
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the rate limit.");
+    }
+  }
+}
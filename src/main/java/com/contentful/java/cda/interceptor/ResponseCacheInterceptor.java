@@ -0,0 +1,211 @@
+package com.contentful.java.cda.interceptor;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * This interceptor keeps the bodies of responses carrying an {@code ETag} in memory and
+ * revalidates them with {@code If-None-Match} on the next request of the same url.
+ * <p>
+ * If the server answers {@code 304 Not Modified}, the cached body is returned as a regular
+ * {@code 200} response, so only headers were transferred. Entries are evicted least recently used
+ * first, once the cached bodies exceed the configured number of bytes. Bodies larger than that
+ * are never read in full here, but streamed through as they are received.
+ * <p>
+ * Only {@code GET} requests are cached. This interceptor needs to be added after the
+ * {@link ErrorInterceptor}, so the error interceptor does not see the {@code 304} responses.
+ */
+public class ResponseCacheInterceptor implements Interceptor {
+  private static final String HEADER_ETAG = "ETag";
+
+  private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+  private static final int HTTP_NOT_MODIFIED = 304;
+
+  private static final int HTTP_OK = 200;
+
+  private final long maxBytes;
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long bytes;
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * One cached response.
+   */
+  private static final class Entry {
+    final String etag;
+
+    final Headers headers;
+
+    final Protocol protocol;
+
+    final String message;
+
+    final MediaType contentType;
+
+    final byte[] body;
+
+    Entry(String etag, Response response, MediaType contentType, byte[] body) {
+      this.etag = etag;
+      this.headers = response.headers();
+      this.protocol = response.protocol();
+      this.message = response.message();
+      this.contentType = contentType;
+      this.body = body;
+    }
+  }
+
+  /**
+   * Create a cache keeping response bodies of up to the given size.
+   *
+   * @param maxBytes how many bytes of response bodies to keep at most.
+   * @throws IllegalArgumentException if maxBytes is not positive.
+   */
+  public ResponseCacheInterceptor(long maxBytes) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("Cache size must be positive, but was " + maxBytes + ".");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Revalidate a cached response or cache the response received.
+   *
+   * @param chain the execution chain for the request.
+   * @return the response received, or the cached one if it did not change.
+   * @throws IOException in case of failure down the line.
+   */
+  @Override public Response intercept(Chain chain) throws IOException {
+    final Request request = chain.request();
+    if (!"GET".equals(request.method()) || request.header(HEADER_IF_NONE_MATCH) != null) {
+      return chain.proceed(request);
+    }
+
+    final String key = request.url().toString();
+    final Entry cached = get(key);
+    final Response response = chain.proceed(cached == null
+        ? request
+        : request.newBuilder().header(HEADER_IF_NONE_MATCH, cached.etag).build());
+
+    if (cached != null && response.code() == HTTP_NOT_MODIFIED) {
+      response.close();
+      hits.incrementAndGet();
+      return response.newBuilder()
+          .code(HTTP_OK)
+          .message(cached.message)
+          .protocol(cached.protocol)
+          .headers(cached.headers)
+          .body(ResponseBody.create(cached.body, cached.contentType))
+          .build();
+    }
+
+    misses.incrementAndGet();
+    final String etag = response.header(HEADER_ETAG);
+    if (response.code() != HTTP_OK || etag == null) {
+      if (cached != null) {
+        remove(key);
+      }
+      return response;
+    }
+
+    final ResponseBody body = response.body();
+    if (body.contentLength() > maxBytes) {
+      remove(key);
+      return response;
+    }
+
+    // the length of chunked or decompressed bodies is only known once read: buffer one byte more
+    // than fits, and stream larger bodies through as they are, the bytes buffered included
+    final BufferedSource source = body.source();
+    if (source.request(maxBytes == Long.MAX_VALUE ? maxBytes : maxBytes + 1)) {
+      remove(key);
+      return response;
+    }
+
+    final MediaType contentType = body.contentType();
+    final byte[] bytes = source.readByteArray();
+    body.close();
+    put(key, new Entry(etag, response, contentType, bytes));
+    return response.newBuilder()
+        .body(ResponseBody.create(bytes, contentType))
+        .build();
+  }
+
+  /**
+   * @return how many responses were served from the cache after revalidating them.
+   */
+  public long hitCount() {
+    return hits.get();
+  }
+
+  /**
+   * @return how many responses had to be transferred in full.
+   */
+  public long missCount() {
+    return misses.get();
+  }
+
+  /**
+   * @return how many bytes of response bodies are currently cached.
+   */
+  public synchronized long size() {
+    return bytes;
+  }
+
+  /**
+   * @return the maximal number of bytes of response bodies cached.
+   */
+  public long maxSize() {
+    return maxBytes;
+  }
+
+  /**
+   * Drop all cached responses.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  private synchronized Entry get(String key) {
+    return entries.get(key);
+  }
+
+  private synchronized void put(String key, Entry entry) {
+    final Entry replaced = entries.put(key, entry);
+    if (replaced != null) {
+      bytes -= replaced.body.length;
+    }
+    bytes += entry.body.length;
+
+    final Iterator<Entry> eldest = entries.values().iterator();
+    while (bytes > maxBytes && eldest.hasNext()) {
+      bytes -= eldest.next().body.length;
+      eldest.remove();
+    }
+  }
+
+  private synchronized void remove(String key) {
+    final Entry removed = entries.remove(key);
+    if (removed != null) {
+      bytes -= removed.body.length;
+    }
+  }
+}
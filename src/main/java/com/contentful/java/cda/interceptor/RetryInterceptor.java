@@ -0,0 +1,152 @@
+package com.contentful.java.cda.interceptor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * This interceptor sends failed {@code GET} requests again, as described by a {@link RetryPolicy}.
+ * <p>
+ * It needs to be added after the {@link ErrorInterceptor}, so the error interceptor only sees the
+ * response of the last attempt.
+ */
+public class RetryInterceptor implements Interceptor {
+  private static final String HEADER_RESET = "X-Contentful-RateLimit-Reset";
+
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+  private final RetryPolicy policy;
+
+  private final Random random = new Random();
+
+  private final AtomicLong retries = new AtomicLong();
+
+  private final AtomicLong recovered = new AtomicLong();
+
+  private final AtomicLong exhausted = new AtomicLong();
+
+  /**
+   * Create an interceptor retrying requests following the given policy.
+   *
+   * @param policy when and how often to retry.
+   * @throws IllegalArgumentException if policy is null.
+   */
+  public RetryInterceptor(RetryPolicy policy) {
+    if (policy == null) {
+      throw new IllegalArgumentException("Policy must not be null.");
+    }
+    this.policy = policy;
+  }
+
+  /**
+   * Send the request, and send it again while it fails and the policy allows another attempt.
+   *
+   * @param chain the execution chain for the request.
+   * @return the first successful response, or the response of the last attempt.
+   * @throws IOException of the last attempt, or if interrupted while waiting.
+   */
+  @Override public Response intercept(Chain chain) throws IOException {
+    final Request request = chain.request();
+    if (!"GET".equals(request.method())) {
+      return chain.proceed(request);
+    }
+
+    for (int attempt = 1; ; ++attempt) {
+      final boolean last = attempt >= policy.maxAttempts;
+      final Response response;
+      try {
+        response = chain.proceed(request);
+      } catch (IOException e) {
+        if (chain.call().isCanceled()) {
+          throw e;
+        }
+        if (last) {
+          countFailure(attempt);
+          throw e;
+        }
+        backoff(attempt, 0);
+        continue;
+      }
+
+      if (!policy.retryableStatusCodes.contains(response.code())) {
+        if (attempt > 1) {
+          recovered.incrementAndGet();
+        }
+        return response;
+      }
+      if (last) {
+        countFailure(attempt);
+        return response;
+      }
+
+      final long resetMillis = response.code() == HTTP_TOO_MANY_REQUESTS
+          ? TimeUnit.SECONDS.toMillis(parseHeader(response, HEADER_RESET))
+          : 0;
+      response.close();
+      backoff(attempt, resetMillis);
+    }
+  }
+
+  /**
+   * @return how many requests were sent again.
+   */
+  public long retryCount() {
+    return retries.get();
+  }
+
+  /**
+   * @return how many requests succeeded after being retried.
+   */
+  public long recoveredCount() {
+    return recovered.get();
+  }
+
+  /**
+   * @return how many requests failed after being retried as often as the policy allows.
+   */
+  public long exhaustedCount() {
+    return exhausted.get();
+  }
+
+  /**
+   * @return the policy followed.
+   */
+  public RetryPolicy policy() {
+    return policy;
+  }
+
+  private void countFailure(int attempts) {
+    if (attempts > 1) {
+      exhausted.incrementAndGet();
+    }
+  }
+
+  private void backoff(int attempt, long minMillis) throws IOException {
+    final double jitter;
+    synchronized (random) {
+      jitter = random.nextDouble();
+    }
+
+    retries.incrementAndGet();
+    try {
+      Thread.sleep(Math.max(minMillis, policy.backoffMillis(attempt, jitter)));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to retry.");
+    }
+  }
+
+  private static int parseHeader(Response response, String name) {
+    try {
+      return Math.max(0, Integer.parseInt(response.header(name)));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
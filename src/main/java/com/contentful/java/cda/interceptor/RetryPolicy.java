@@ -0,0 +1,195 @@
+package com.contentful.java.cda.interceptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes when and how often a failed request gets sent again by the {@link RetryInterceptor}.
+ * <p>
+ * Only {@code GET} requests are retried, after a response with one of the retryable status codes
+ * or an {@link java.io.IOException}. The delay before the {@code n}th retry is
+ * {@code initialBackoff * multiplier^(n-1)}, capped at {@code maxBackoff} and randomly shortened
+ * by up to {@code jitter} of its length, so clients failing at the same time do not retry at the
+ * same time. A {@code 429} response waits at least until the rate limit got reset. Clients with a
+ * rate limiter leave {@code 429} responses to it and never retry them following this policy.
+ */
+public class RetryPolicy {
+  private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+  private static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+
+  private static final long DEFAULT_MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+  private static final double DEFAULT_MULTIPLIER = 2.0;
+
+  private static final double DEFAULT_JITTER = 0.5;
+
+  private static final Set<Integer> DEFAULT_STATUS_CODES = Collections.unmodifiableSet(
+      new HashSet<>(Arrays.asList(429, 500, 502, 503, 504)));
+
+  final int maxAttempts;
+
+  final long initialBackoffMillis;
+
+  final long maxBackoffMillis;
+
+  final double multiplier;
+
+  final double jitter;
+
+  final Set<Integer> retryableStatusCodes;
+
+  RetryPolicy(Builder builder) {
+    this.maxAttempts = builder.maxAttempts;
+    this.initialBackoffMillis = builder.initialBackoffMillis;
+    this.maxBackoffMillis = builder.maxBackoffMillis;
+    this.multiplier = builder.multiplier;
+    this.jitter = builder.jitter;
+    this.retryableStatusCodes = builder.retryableStatusCodes;
+  }
+
+  /**
+   * @return a builder starting from the default policy.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return a builder starting from this policy.
+   */
+  public Builder newBuilder() {
+    final Builder builder = new Builder();
+    builder.maxAttempts = maxAttempts;
+    builder.initialBackoffMillis = initialBackoffMillis;
+    builder.maxBackoffMillis = maxBackoffMillis;
+    builder.multiplier = multiplier;
+    builder.jitter = jitter;
+    builder.retryableStatusCodes = retryableStatusCodes;
+    return builder;
+  }
+
+  /**
+   * @return the default policy: three attempts, starting with 100 milliseconds of backoff.
+   */
+  public static RetryPolicy defaultPolicy() {
+    return builder().build();
+  }
+
+  /**
+   * @return how often a request gets sent at most, including the first attempt.
+   */
+  public int maxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * @return the status codes of responses to be retried.
+   */
+  public Set<Integer> retryableStatusCodes() {
+    return retryableStatusCodes;
+  }
+
+  /**
+   * Calculate the delay before the given retry.
+   *
+   * @param retry  the number of the retry, starting at one.
+   * @param random a random number between zero and one, to apply the jitter.
+   * @return the delay in milliseconds.
+   */
+  long backoffMillis(int retry, double random) {
+    final double backoff = Math.min(maxBackoffMillis,
+        initialBackoffMillis * Math.pow(multiplier, retry - 1));
+    return (long) (backoff * (1 - jitter * random));
+  }
+
+  /**
+   * Builds a {@link RetryPolicy}.
+   */
+  public static class Builder {
+    int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+
+    long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+
+    double multiplier = DEFAULT_MULTIPLIER;
+
+    double jitter = DEFAULT_JITTER;
+
+    Set<Integer> retryableStatusCodes = DEFAULT_STATUS_CODES;
+
+    Builder() {
+    }
+
+    /**
+     * @param maxAttempts how often to send a request at most, including the first attempt.
+     * @return this builder for chaining.
+     * @throws IllegalArgumentException if maxAttempts is less than one.
+     */
+    public Builder setMaxAttempts(int maxAttempts) {
+      if (maxAttempts < 1) {
+        throw new IllegalArgumentException(
+            "Attempts must be at least 1, but were " + maxAttempts + ".");
+      }
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * @param initial    delay before the first retry.
+     * @param max        maximal delay before any retry.
+     * @param multiplier factor to grow the delay by with every retry, at least one.
+     * @param unit       the unit of the delays.
+     * @return this builder for chaining.
+     * @throws IllegalArgumentException if a delay is negative or the multiplier is less than one.
+     */
+    public Builder setBackoff(long initial, long max, double multiplier, TimeUnit unit) {
+      if (initial < 0 || max < 0) {
+        throw new IllegalArgumentException("Backoff must not be negative.");
+      }
+      if (multiplier < 1) {
+        throw new IllegalArgumentException(
+            "Backoff multiplier must be at least 1, but was " + multiplier + ".");
+      }
+      this.initialBackoffMillis = unit.toMillis(initial);
+      this.maxBackoffMillis = unit.toMillis(max);
+      this.multiplier = multiplier;
+      return this;
+    }
+
+    /**
+     * @param jitter the fraction of every delay to be randomly cut off, between zero and one.
+     * @return this builder for chaining.
+     * @throws IllegalArgumentException if jitter is not between zero and one.
+     */
+    public Builder setJitter(double jitter) {
+      if (jitter < 0 || jitter > 1) {
+        throw new IllegalArgumentException(
+            "Jitter must be between 0 and 1, but was " + jitter + ".");
+      }
+      this.jitter = jitter;
+      return this;
+    }
+
+    /**
+     * @param statusCodes the status codes of responses to be retried.
+     * @return this builder for chaining.
+     */
+    public Builder setRetryableStatusCodes(Integer... statusCodes) {
+      this.retryableStatusCodes =
+          Collections.unmodifiableSet(new HashSet<>(Arrays.asList(statusCodes)));
+      return this;
+    }
+
+    /**
+     * @return the policy configured.
+     */
+    public RetryPolicy build() {
+      return new RetryPolicy(this);
+    }
+  }
+}
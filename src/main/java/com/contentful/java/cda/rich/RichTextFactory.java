@@ -86,13 +86,25 @@ public class RichTextFactory {
             }
             for (CDAField field : contentType.fields()) {
                 if ("RichText".equals(field.type())) {
-                    resolveRichDocument(entry, field);
-                    resolveRichLink(array, entry, field);
+                    resolveRichTextField(array, entry, field);
                 }
             }
         }
     }
 
+    /**
+     * Resolve one rich text field of the given entry.
+     *
+     * @param array the array containing the complete response, used for resolving links.
+     * @param entry the entry containing the rich text field.
+     * @param field the rich text field to be resolved.
+     */
+    public static void resolveRichTextField(ArrayResource array, CDAEntry entry,
+                                            CDAField field) {
+        resolveRichDocument(entry, field);
+        resolveRichLink(array, entry, field);
+    }
+
     /**
      * Resolve all children of the top most document block.
      *
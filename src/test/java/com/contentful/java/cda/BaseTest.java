@@ -94,6 +94,12 @@ public class BaseTest {
     server.enqueue(mock);
   }
 
+  protected String readResource(String name) throws IOException {
+    URL resource = getClass().getClassLoader().getResource(name);
+    checkNotNull(resource, "File not found: " + name);
+    return readFileToString(new File(resource.getFile()), defaultCharset());
+  }
+
   public BaseTest setResponseQueue(List<TestResponse> responseQueue) {
     this.responseQueue = responseQueue;
     return this;
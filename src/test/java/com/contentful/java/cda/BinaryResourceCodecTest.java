@@ -0,0 +1,109 @@
+package com.contentful.java.cda;
+
+import com.contentful.java.cda.lib.Enqueue;
+import com.contentful.java.cda.rich.CDARichDocument;
+import com.contentful.java.cda.rich.CDARichEmbeddedBlock;
+import com.contentful.java.cda.rich.CDARichText;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class BinaryResourceCodecTest extends BaseTest {
+  private final ResourceCodec codec = new BinaryResourceCodec();
+
+  @SuppressWarnings("unchecked")
+  @Test @Enqueue(defaults = {
+      "links/locales.json",
+      "links/content_types.json"
+  }, value = {
+      "links/entries.json"
+  }) public void arraysRoundTripWithLinks() throws IOException {
+    CDAArray original = client.fetch(CDAEntry.class).all();
+    CDAArray array = codec.decode(new ByteArrayInputStream(encode(original)), CDAArray.class);
+
+    assertThat(array.total()).isEqualTo(original.total());
+    assertThat(array.limit()).isEqualTo(original.limit());
+    assertThat(array.items()).hasSize(original.items().size());
+    assertThat(array.assets().keySet()).containsExactlyElementsIn(original.assets().keySet());
+    assertThat(array.entries().keySet()).containsExactlyElementsIn(original.entries().keySet());
+    assertThat(array.items().get(0)).isSameAs(array.entries().get(original.items().get(0).id()));
+
+    CDAEntry container = array.entries().get("3vyEoAvlkk8yE4a8gCCkiu");
+    assertThat(container.contentType().id())
+        .isEqualTo(original.entries().get("3vyEoAvlkk8yE4a8gCCkiu").contentType().id());
+    assertThat(container.<Object>getField("asset"))
+        .isSameAs(array.assets().get("3xkzMDqRTaoIeKkUYwiIUw"));
+    List<CDAEntry> entries = container.getField("entries");
+    assertThat(entries).hasSize(3);
+    assertThat(entries.get(0)).isSameAs(array.entries().get("4NvEw8RaUUkSa2uEEogAeG"));
+    assertThat((List<String>) container.getField("symbols")).containsExactly("a", "b", "c");
+    assertThat(container.rawFields()).isEqualTo(
+        original.entries().get("3vyEoAvlkk8yE4a8gCCkiu").rawFields());
+  }
+
+  @Test
+  @Enqueue(value = "rich_text/simple_text_embedded.json",
+      defaults = {"rich_text/locales.json", "rich_text/content_types.json"})
+  public void richTextIsResolvedAgain() throws IOException {
+    CDAArray array = codec.decode(
+        new ByteArrayInputStream(encode(client.fetch(CDAEntry.class).all())), CDAArray.class);
+
+    CDARichDocument rich = ((CDAEntry) array.items().get(0)).getField("rich");
+    assertThat(rich.getContent()).hasSize(2);
+    assertThat(rich.getContent().get(0)).isInstanceOf(CDARichEmbeddedBlock.class);
+
+    CDARichEmbeddedBlock embedded = (CDARichEmbeddedBlock) rich.getContent().get(0);
+    assertThat(embedded.getData()).isInstanceOf(CDAEntry.class);
+    assertThat(((CDAEntry) embedded.getData()).<String>getField("name")).isEqualTo("simple_text");
+    assertThat(embedded.getContent().get(0)).isInstanceOf(CDARichText.class);
+  }
+
+  @Test @Enqueue({"demo/sync_initial_p1.json", "demo/sync_initial_p2.json"})
+  public void synchronizedSpacesRoundTrip() throws IOException {
+    SynchronizedSpace original = client.sync().observe().blockingFirst();
+    byte[] encoded = encode(original);
+    SynchronizedSpace space = codec.decode(new ByteArrayInputStream(encoded),
+        SynchronizedSpace.class);
+
+    assertThat(space.nextSyncUrl()).isEqualTo(original.nextSyncUrl());
+    assertThat(space.items()).hasSize(original.items().size());
+    assertThat(space.deletedEntries()).isEmpty();
+    CDAEntry happyCat = space.entries().get("happycat");
+    assertThat(happyCat.<CDAEntry>getField("bestFriend"))
+        .isSameAs(space.entries().get("nyancat"));
+    assertThat(happyCat.localize("tlh").<String>getField("name"))
+        .isEqualTo(original.entries().get("happycat").localize("tlh").<String>getField("name"));
+    assertThat(space.linkIndex().entriesLinkingTo("nyancat")).contains("happycat");
+
+    ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+    try (ObjectOutputStream output = new ObjectOutputStream(serialized)) {
+      output.writeObject(original);
+    }
+    assertThat(encoded.length).isLessThan(serialized.size());
+  }
+
+  @Test(expected = IOException.class)
+  @Enqueue({"demo/sync_initial_p1.json", "demo/sync_initial_p2.json"})
+  public void decodingAnotherTypeFails() throws IOException {
+    byte[] encoded = encode(client.sync().observe().blockingFirst());
+    codec.decode(new ByteArrayInputStream(encoded), CDAArray.class);
+  }
+
+  @Test(expected = IOException.class)
+  public void decodingGarbageFails() throws IOException {
+    codec.decode(new ByteArrayInputStream(new byte[]{1, 2, 3}), CDAArray.class);
+  }
+
+  private byte[] encode(ArrayResource array) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    codec.encode(array, output);
+    return output.toByteArray();
+  }
+}
@@ -0,0 +1,74 @@
+package com.contentful.java.cda;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CacheTest {
+  @Test public void concurrentlyPutTypesAreAllKept() throws InterruptedException {
+    final Cache cache = new Cache();
+    cache.setTypes(new HashMap<String, CDAContentType>());
+    final long version = cache.snapshot().version;
+
+    final int count = 500;
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int i = 0; i < count; ++i) {
+      final String id = "type-" + i;
+      executor.execute(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        cache.putType(createType(id));
+      });
+    }
+    start.countDown();
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(cache.types()).hasSize(count);
+    assertThat(cache.snapshot().version).isEqualTo(version + count);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void typesCannotBeChangedFromOutside() {
+    final Cache cache = new Cache();
+    cache.setTypes(new HashMap<String, CDAContentType>());
+
+    cache.types().put("foo", createType("foo"));
+  }
+
+  @Test public void settingTypesDoesNotKeepReferenceToGivenMap() {
+    final Cache cache = new Cache();
+    final Map<String, CDAContentType> types = new HashMap<>();
+    cache.setTypes(types);
+
+    types.put("foo", createType("foo"));
+
+    assertThat(cache.types()).isEmpty();
+  }
+
+  @Test public void putTypesWithoutTypesSetIsIgnored() {
+    final Cache cache = new Cache();
+
+    cache.putType(createType("foo"));
+
+    assertThat(cache.types()).isNull();
+  }
+
+  private static CDAContentType createType(String id) {
+    final CDAContentType type = new CDAContentType();
+    type.attrs = new HashMap<>();
+    type.attrs.put("id", id);
+    return type;
+  }
+}
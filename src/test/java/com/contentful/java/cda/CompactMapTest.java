@@ -0,0 +1,142 @@
+package com.contentful.java.cda;
+
+import com.contentful.java.cda.lib.Enqueue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CompactMapTest extends BaseTest {
+  private static final KeySlots SLOTS = KeySlots.of(Arrays.asList("en-US", "de-DE", "fr-FR"));
+
+  @Test
+  public void behavesLikeAMap() {
+    final Map<String, Object> expected = new LinkedHashMap<>();
+    final Map<String, Object> map = new CompactMap(SLOTS);
+
+    for (Map<String, Object> target : Arrays.asList(expected, map)) {
+      target.put("de-DE", "Hallo");
+      target.put("en-US", null);
+      target.put("tlh", "nuqneH");
+      target.put("de-DE", "Guten Tag");
+      target.remove("fr-FR");
+    }
+
+    assertThat(map).isEqualTo(expected);
+    assertThat(map).hasSize(3);
+    assertThat(map.containsKey("en-US")).isTrue();
+    assertThat(map.containsKey("fr-FR")).isFalse();
+    assertThat(map.get("de-DE")).isEqualTo("Guten Tag");
+    assertThat(map.get("tlh")).isEqualTo("nuqneH");
+    assertThat(map.keySet()).containsExactly("en-US", "de-DE", "tlh").inOrder();
+  }
+
+  @Test
+  public void entriesWriteThrough() {
+    final Map<String, Object> map = new CompactMap(SLOTS);
+    map.put("en-US", "hello");
+    map.put("fr-FR", "bonjour");
+    map.put("tlh", "nuqneH");
+
+    final Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+    iterator.next().setValue("hi");
+    iterator.next();
+    iterator.remove();
+    iterator.next();
+    iterator.remove();
+    assertThat(iterator.hasNext()).isFalse();
+
+    assertThat(map).containsExactly("en-US", "hi");
+  }
+
+  @Test
+  public void copiesAreIndependent() {
+    final Map<String, Object> map = new CompactMap(SLOTS);
+    map.put("en-US", "hello");
+
+    final Map<String, Object> copy = CompactMap.copyOf(map);
+    copy.put("en-US", "hi");
+    copy.put("tlh", "nuqneH");
+
+    assertThat(copy).isInstanceOf(CompactMap.class);
+    assertThat(map).containsExactly("en-US", "hello");
+  }
+
+  @Test
+  public void serializesAsOrdinaryMap() throws IOException, ClassNotFoundException {
+    final Map<String, Object> map = new CompactMap(SLOTS);
+    map.put("de-DE", "Hallo");
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(map);
+    }
+    try (ObjectInputStream in =
+             new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      final Object read = in.readObject();
+      assertThat(read).isInstanceOf(LinkedHashMap.class);
+      assertThat(read).isEqualTo(map);
+    }
+  }
+
+  @Test
+  @Enqueue("demo/entries.json")
+  public void entriesKeepCompactFields() {
+    final Map<String, CDAEntry> entries = client.fetch(CDAEntry.class).all().entries();
+    final CDAEntry nyancat = entries.get("nyancat");
+    final CDAEntry happycat = entries.get("happycat");
+
+    assertThat(nyancat.fields).isInstanceOf(CompactMap.class);
+    assertThat(nyancat.rawFields.get("name")).isInstanceOf(CompactMap.class);
+    assertThat(nyancat.rawFields.get("name"))
+        .isEqualTo(Collections.singletonMap("en-US", "Nyan Cat"));
+    assertThat(nyancat.<String>getField("name")).isEqualTo("Nyan Cat");
+    assertThat(nyancat.<CDAEntry>getField("bestFriend")).isSameAs(happycat);
+    assertThat(happycat.<CDAEntry>getField("bestFriend")).isSameAs(nyancat);
+  }
+
+  @Test
+  @Enqueue({"demo/sync_initial_p1.json", "demo/sync_initial_p2.json"})
+  public void valuesOfOneLocaleTakeOneSlot() {
+    final CDAEntry nyancat = client.sync().fetch().entries().get("nyancat");
+
+    @SuppressWarnings("unchecked")
+    final Map<String, Object> color = (Map<String, Object>) nyancat.rawFields.get("color");
+    assertThat(nyancat.rawFields.get("name")).isInstanceOf(CompactMap.class);
+    assertThat(color).isInstanceOf(CompactMap.class);
+    assertThat(color).isEqualTo(Collections.singletonMap("en-US", "rainbow"));
+    assertThat(nyancat.<String>getField("tlh", "name")).isEqualTo("Nyan vIghro'");
+    assertThat(nyancat.<String>getField("tlh", "color")).isEqualTo("rainbow");
+
+    color.put("tlh", "rainbow");
+    assertThat(color).hasSize(2);
+    assertThat(nyancat.<String>getField("tlh", "color")).isEqualTo("rainbow");
+  }
+
+  @Test
+  public void singleKeyTablesAreShared() {
+    assertThat(SLOTS.single("de-DE")).isSameAs(SLOTS.single("de-DE"));
+    assertThat(SLOTS.single("de-DE").keys).asList().containsExactly("de-DE");
+    assertThat(SLOTS.single("tlh").keys).asList().containsExactly("tlh");
+  }
+
+  @Test
+  public void fallbacksWrittenWithResourcesKnowTheirTargets() {
+    final Map<String, String> fallbacks = new LinkedHashMap<>();
+    fallbacks.put("de-DE", "en-US");
+
+    assertThat(LocaleFallbacks.of(fallbacks).slots.keys).asList()
+        .containsExactly("de-DE", "en-US").inOrder();
+  }
+}
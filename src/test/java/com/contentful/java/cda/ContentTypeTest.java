@@ -4,7 +4,15 @@ import com.contentful.java.cda.lib.Enqueue;
 
 import org.junit.Test;
 
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +41,22 @@ public class ContentTypeTest extends BaseTest {
     assertThat(client.cache.types().get(fake.id())).isSameAs(fake);
   }
 
+  @Test
+  @Enqueue({"demo/content_types_cat.json", "demo/content_types_cat.json"})
+  public void fieldPlanIsCachedUntilTypeIsReplaced() {
+    CDAContentType cat = client.fetch(CDAContentType.class).one("cat");
+    FieldPlan plan = client.cache.fieldPlan(cat);
+    assertThat(plan.links).isNotEmpty();
+    assertThat(client.cache.fieldPlan(cat)).isSameAs(plan);
+
+    CDAContentType replaced = client.fetch(CDAContentType.class).one("cat");
+    assertThat(replaced).isNotSameAs(cat);
+    assertThat(client.cache.fieldPlan(replaced)).isNotSameAs(plan);
+
+    client.clearCache();
+    assertThat(client.cache.fieldPlan(replaced)).isNotSameAs(client.cache.fieldPlan(replaced));
+  }
+
   @Test
   @Enqueue(defaults = {
       "cda/locales.json"
@@ -54,6 +78,28 @@ public class ContentTypeTest extends BaseTest {
     assertThat(client.cache.types()).containsKey("3lYaFZKDgQCUwWy6uEoQYi");
   }
 
+  @Test
+  @Enqueue(defaults = {
+      "cda/locales.json"
+  }, value = {
+      "cda/content_types_foo.json",
+      "cda/entries.json",
+      "cda/content_types_bar.json"
+  })
+  public void missingContentTypesAreFetchedInOneRequest() throws InterruptedException {
+    client.fetch(CDAEntry.class).all();
+
+    assertThat(server.getRequestCount()).isEqualTo(4);
+    server.takeRequest();
+    server.takeRequest();
+    server.takeRequest();
+    final RecordedRequest typesRequest = server.takeRequest();
+    assertThat(typesRequest.getRequestUrl().encodedPath())
+        .isEqualTo("/spaces/test_space/environments/master/content_types");
+    assertThat(typesRequest.getRequestUrl().queryParameter("sys.id[in]"))
+        .isEqualTo("3lYaFZKDgQCUwWy6uEoQYi");
+  }
+
   @Test(expected = CDAContentTypeNotFoundException.class)
   @Enqueue({
       "demo/entries_fake.json",
@@ -87,6 +133,74 @@ public class ContentTypeTest extends BaseTest {
     assertThat(allowedColorValues).containsExactlyElementsIn(Arrays.asList("rainbow", "pink"));
   }
 
+  @Test
+  @Enqueue({
+      "content_types/populate_cache_complex_p1.json",
+      "content_types/populate_cache_complex_p2.json",
+      "content_types/populate_cache_complex_p3.json"
+  })
+  public void streamFetchesPagesOnDemand() throws InterruptedException {
+    TestSubscriber<CDAContentType> subscriber =
+        client.observe(CDAContentType.class).limit(60).stream(0).test(1);
+    subscriber.assertValueCount(1);
+    assertThat(server.getRequestCount()).isEqualTo(3);
+
+    subscriber.request(60);
+    subscriber.assertValueCount(61);
+    assertThat(server.getRequestCount()).isEqualTo(4);
+
+    subscriber.request(Long.MAX_VALUE);
+    subscriber.assertValueCount(151).assertComplete();
+    assertThat(subscriber.values().get(150).id()).isEqualTo("151");
+
+    server.takeRequest();
+    server.takeRequest();
+    for (int skip = 0; skip < 151; skip += 60) {
+      RecordedRequest request = server.takeRequest();
+      assertThat(request.getRequestUrl().queryParameter("skip")).isEqualTo(Integer.toString(skip));
+      assertThat(request.getRequestUrl().queryParameter("order")).isEqualTo("sys.id");
+    }
+  }
+
+  @Test
+  @Enqueue(defaults = {})
+  public void streamPrefetchesPages() throws IOException {
+    final Map<String, String> pages = new HashMap<>();
+    pages.put("0", "content_types/populate_cache_complex_p1.json");
+    pages.put("60", "content_types/populate_cache_complex_p2.json");
+    pages.put("120", "content_types/populate_cache_complex_p3.json");
+    final String locales = readResource("demo/locales.json");
+    final String types = readResource("demo/content_types.json");
+    final Map<String, String> bodies = new HashMap<>();
+    for (Map.Entry<String, String> page : pages.entrySet()) {
+      bodies.put(page.getKey(), readResource(page.getValue()));
+    }
+    server.setDispatcher(new Dispatcher() {
+      @Override public MockResponse dispatch(RecordedRequest request) {
+        final HttpUrl url = request.getRequestUrl();
+        if (url.encodedPath().endsWith("/locales")) {
+          return new MockResponse().setBody(locales);
+        } else if (url.queryParameter("skip") == null) {
+          return new MockResponse().setBody(types);
+        }
+        return new MockResponse().setBody(bodies.get(url.queryParameter("skip")));
+      }
+    });
+
+    List<CDAContentType> streamed =
+        client.observe(CDAContentType.class).limit(60).stream(2).toList().blockingGet();
+
+    assertThat(streamed).hasSize(151);
+    for (int i = 0; i < streamed.size(); ++i) {
+      assertThat(streamed.get(i).id()).isEqualTo(String.format("%03d", i + 1));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void streamWithNegativePrefetchThrows() {
+    client.observe(CDAContentType.class).stream(-1);
+  }
+
   private CDAField findFieldById(List<CDAField> fields, String id) {
     for (CDAField field : fields) {
       if (id.equals(field.id())) {
@@ -5,13 +5,22 @@ import com.contentful.java.cda.lib.TestCallback;
 
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -272,4 +281,73 @@ public class EntryTest extends BaseTest {
     entries.setErrors(errors);
     assertThat(entries.getErrors()).hasSize(1);
   }
+
+  @Test
+  @Enqueue(defaults = {})
+  public void allPagesMergesPagesFetchedInParallel() throws IOException {
+    final String locales = readResource("demo/locales.json");
+    final String types = readResource("demo/content_types.json");
+    final Map<String, String> pages = new HashMap<>();
+    pages.put("0", readResource("arrays/paged_entries_p1.json"));
+    pages.put("4", readResource("arrays/paged_entries_p2.json"));
+    pages.put("8", readResource("arrays/paged_entries_p3.json"));
+    final AtomicInteger rateLimited = new AtomicInteger();
+    server.setDispatcher(new Dispatcher() {
+      @Override public MockResponse dispatch(RecordedRequest request) {
+        final HttpUrl url = request.getRequestUrl();
+        final String skip = url.queryParameter("skip");
+        if (url.encodedPath().endsWith("/locales")) {
+          return new MockResponse().setBody(locales);
+        } else if (url.encodedPath().endsWith("/content_types")) {
+          return new MockResponse().setBody(types);
+        } else if ("8".equals(skip) && rateLimited.getAndIncrement() == 0) {
+          return new MockResponse()
+              .setResponseCode(429)
+              .setHeader("X-Contentful-RateLimit-Reset", "0")
+              .setBody("{}");
+        }
+        return new MockResponse().setBody(pages.get(skip));
+      }
+    });
+
+    client = createBuilder().setRateLimit(100, 3).build();
+    CDAArray array = client.fetch(CDAEntry.class).limit(4).allPages(2);
+
+    assertThat(rateLimited.get()).isEqualTo(2);
+    assertThat(array.total()).isEqualTo(11);
+    assertThat(array.limit()).isEqualTo(11);
+    assertThat(array.items()).hasSize(11);
+    assertThat(array.items().get(0).id()).isEqualTo("6KntaYXaHSyIw8M6eo26OK");
+    assertThat(array.items().get(10).id()).isEqualTo("5ETMRzkl9KM4omyMwKAOki");
+
+    CDAEntry happyCat = array.entries().get("happycat");
+    CDAEntry nyanCat = array.entries().get("nyancat");
+    assertThat(array.items()).contains(nyanCat);
+    assertThat(happyCat.<CDAEntry>getField("bestFriend")).isSameAs(nyanCat);
+    assertThat(nyanCat.<CDAEntry>getField("bestFriend")).isSameAs(happyCat);
+  }
+
+  @Test
+  @Enqueue(
+      defaults = {"demo/locales.json", "demo/content_types.json", "arrays/paged_entries_p1.json"}
+  )
+  public void allPagesLeavesRateLimitsToTheClient() {
+    server.enqueue(new MockResponse()
+        .setResponseCode(429)
+        .setHeader("X-Contentful-RateLimit-Reset", "0")
+        .setBody("{}"));
+
+    try {
+      client.fetch(CDAEntry.class).limit(4).allPages(1);
+      fail("Expected the rate limit to be reported.");
+    } catch (CDAHttpException e) {
+      assertThat(e.responseCode()).isEqualTo(429);
+    }
+    assertThat(server.getRequestCount()).isEqualTo(4);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void allPagesWithoutParallelismThrows() {
+    client.fetch(CDAEntry.class).allPages(0);
+  }
 }
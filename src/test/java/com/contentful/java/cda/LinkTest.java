@@ -5,6 +5,7 @@ import com.contentful.java.cda.lib.Enqueue;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.Map;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -53,6 +54,25 @@ public class LinkTest extends BaseTest {
     assertThat((List<String>) container.getField("symbols")).containsExactly("a", "b", "c");
   }
 
+  @SuppressWarnings("unchecked")
+  @Test @Enqueue(defaults = {
+      "links/locales.json",
+      "links/content_types.json"
+  }, value = {
+      "links/entries.json"
+  }) public void rawFieldsKeepLinksAndShareUnchangedFields() {
+    CDAArray array = client.fetch(CDAEntry.class).all();
+
+    CDAEntry container = array.entries().get("3vyEoAvlkk8yE4a8gCCkiu");
+    Map<String, Object> rawAsset = (Map<String, Object>) container.rawFields().get("asset");
+    assertThat(rawAsset.get("en-US")).isInstanceOf(Map.class);
+    Map<String, Object> rawAssets = (Map<String, Object>) container.rawFields().get("assets");
+    assertThat((List<Object>) rawAssets.get("en-US")).hasSize(2);
+    assertThat(((List<Object>) rawAssets.get("en-US")).get(0)).isInstanceOf(Map.class);
+
+    assertThat(container.rawFields().get("symbols")).isSameAs(container.fields.get("symbols"));
+  }
+
   @Test @Enqueue(defaults = {
       "links/locales.json",
       "links/content_types.json"
@@ -4,6 +4,10 @@ import com.contentful.java.cda.lib.Enqueue;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -85,6 +89,66 @@ public class LocaleFallbackTest extends BaseTest {
     assertThat(toNull.<Object>getField("null", "title")).isNull();
   }
 
+  @Test
+  @Enqueue(
+      defaults = {"locales_fallback/fetch_all_locales.json", "locales_fallback/content_types.json"},
+      value = "locales_fallback/entries.json"
+  )
+  public void fallbackChainsAreSharedByAllResources() {
+    final Map<String, CDAEntry> entries = client.fetch(CDAEntry.class).all().entries();
+
+    final CDAEntry first = entries.get("no-first");
+    final CDAEntry second = entries.get("no-null");
+    assertThat(first.fallbackLocaleChains).isSameAs(second.fallbackLocaleChains);
+    assertThat(first.fallbackLocaleChains).isSameAs(client.cache.fallbacks().chains);
+    assertThat(first.fallbackLocaleChains.get("first")).asList()
+        .containsExactly("first", "inbetween", "default").inOrder();
+    assertThat(first.fallbackLocaleChains.get("null")).asList().containsExactly("null");
+  }
+
+  @Test
+  public void cyclicFallbacksEndTheChain() {
+    final Map<String, String> fallbacks = new HashMap<>();
+    fallbacks.put("a", "b");
+    fallbacks.put("b", "a");
+
+    final CDAEntry entry = new CDAEntry();
+    entry.fields = new HashMap<>();
+    entry.fields.put("title", new HashMap<String, Object>());
+    LocaleFallbacks.of(fallbacks).applyTo(entry);
+
+    assertThat(entry.fallbackLocaleChains.get("a")).asList().containsExactly("a", "b").inOrder();
+    assertThat(entry.<Object>getField("a", "title")).isNull();
+  }
+
+  @Test
+  public void deserializedResourcesWithoutChainsFallBack() throws Exception {
+    final Map<String, String> fallbacks = new HashMap<>();
+    fallbacks.put("first", "inbetween");
+    fallbacks.put("inbetween", "default");
+    final Map<String, Object> title = new HashMap<>();
+    title.put("default", "Title");
+
+    final CDAEntry entry = new CDAEntry();
+    entry.defaultLocale = "default";
+    entry.fields = new HashMap<>();
+    entry.fields.put("title", title);
+    entry.fallbackLocaleMap = fallbacks;
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(entry);
+    }
+    final CDAEntry read;
+    try (ObjectInputStream in =
+             new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      read = (CDAEntry) in.readObject();
+    }
+
+    assertThat(read.fallbackLocaleChains).isNull();
+    assertThat(read.<String>getField("first", "title")).isEqualTo("Title");
+    assertThat(read.<String>getField("null", "title")).isNull();
+  }
 
   private static final Namer<CDALocale> localeNamer = new Namer<CDALocale>() {
     @Override
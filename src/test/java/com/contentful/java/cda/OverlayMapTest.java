@@ -0,0 +1,102 @@
+package com.contentful.java.cda;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class OverlayMapTest {
+  @Test
+  public void recordsChangesWithoutChangingTheMapBelow() {
+    final Map<String, String> base = numbers(100);
+    final Map<String, String> expected = new HashMap<>(base);
+    final Map<String, String> map = OverlayMap.over(base);
+    assertThat(map).isInstanceOf(OverlayMap.class);
+
+    for (Map<String, String> target : new Map[]{expected, map}) {
+      target.put("1", "one");
+      target.put("new", "value");
+      target.remove("2");
+      target.remove("missing");
+      target.put("gone", "soon");
+      target.remove("gone");
+    }
+
+    assertThat(map).isEqualTo(expected);
+    assertThat(map).hasSize(100);
+    assertThat(map.containsKey("2")).isFalse();
+    assertThat(map.get("2")).isNull();
+    assertThat(base).isEqualTo(numbers(100));
+  }
+
+  @Test
+  public void foldsLayersOfManySyncs() {
+    final Map<String, String> expected = numbers(1000);
+    Map<String, String> map = new HashMap<>(expected);
+    for (int sync = 0; sync < 64; ++sync) {
+      final Map<String, String> previous = map;
+      final Map<String, String> snapshot = new HashMap<>(map);
+      map = OverlayMap.over(map);
+      for (Map<String, String> target : new Map[]{expected, map}) {
+        target.put(String.valueOf(sync), "sync " + sync);
+        target.remove(String.valueOf(sync + 500));
+      }
+      assertThat(map).isEqualTo(expected);
+      assertThat(depth(map)).isAtMost(7);
+      assertThat(previous).isEqualTo(snapshot);
+    }
+  }
+
+  @Test
+  public void flattensOnceChangesOutweighTheMapBelow() {
+    final Map<String, String> map = OverlayMap.over(numbers(2));
+    map.put("a", "a");
+    map.put("b", "b");
+    map.put("c", "c");
+
+    final Map<String, String> next = OverlayMap.over(map);
+    assertThat(next).isInstanceOf(HashMap.class);
+    assertThat(next).isEqualTo(map);
+  }
+
+  @Test
+  public void iteratorRemovesFromBothLayers() {
+    final Map<String, String> base = numbers(10);
+    final Map<String, String> map = OverlayMap.over(base);
+    map.put("new", "value");
+    map.put("3", "three");
+
+    final Iterator<Map.Entry<String, String>> iterator = map.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final String key = iterator.next().getKey();
+      if ("new".equals(key) || "3".equals(key) || "4".equals(key)) {
+        iterator.remove();
+      }
+    }
+
+    assertThat(map).hasSize(8);
+    assertThat(map).doesNotContainKey("new");
+    assertThat(map).doesNotContainKey("3");
+    assertThat(map).doesNotContainKey("4");
+    assertThat(base).isEqualTo(numbers(10));
+  }
+
+  private static Map<String, String> numbers(int count) {
+    final Map<String, String> numbers = new HashMap<>();
+    for (int i = 0; i < count; ++i) {
+      numbers.put(String.valueOf(i), "number " + i);
+    }
+    return numbers;
+  }
+
+  private static int depth(Map<String, String> map) {
+    int depth = 0;
+    for (Map<String, String> layer = map; layer instanceof OverlayMap; ++depth) {
+      layer = ((OverlayMap<String>) layer).base();
+    }
+    return depth;
+  }
+}
@@ -0,0 +1,142 @@
+package com.contentful.java.cda;
+
+import com.contentful.java.cda.lib.Enqueue;
+import com.contentful.java.cda.lib.EnqueueResponse;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class QueryCacheTest extends BaseTest {
+  @Test @Enqueue("demo/entries.json")
+  public void repeatedQueriesAreServedFromCache() {
+    client = createBuilder().setQueryCache(1000, 0, TimeUnit.SECONDS).build();
+
+    CDAArray first = client.fetch(CDAEntry.class).where("order", "sys.id").limit(20).all();
+    int requests = server.getRequestCount();
+    CDAArray second = client.fetch(CDAEntry.class).limit(20).where("order", "sys.id").all();
+
+    assertThat(second).isSameAs(first);
+    assertThat(server.getRequestCount()).isEqualTo(requests);
+    assertThat(client.queryCache().hitCount()).isEqualTo(1);
+    assertThat(client.queryCache().missCount()).isEqualTo(1);
+    assertThat(client.queryCache().weight()).isGreaterThan(0L);
+  }
+
+  @Test @Enqueue({"demo/entries.json", "demo/entries.json"})
+  public void expiredResultsAreFetchedAgain() {
+    TestScheduler clock = new TestScheduler();
+    CDAClient.Builder builder = createBuilder();
+    builder.queryCache = new QueryCache(1000, 1, TimeUnit.MINUTES, false, clock);
+    client = builder.build();
+
+    CDAArray first = client.fetch(CDAEntry.class).all();
+    clock.advanceTimeBy(59, TimeUnit.SECONDS);
+    assertThat(client.fetch(CDAEntry.class).all()).isSameAs(first);
+
+    clock.advanceTimeBy(1, TimeUnit.SECONDS);
+    assertThat(client.fetch(CDAEntry.class).all()).isNotSameAs(first);
+    assertThat(client.queryCache().missCount()).isEqualTo(2);
+  }
+
+  @Test @Enqueue({"demo/entries.json", "demo/entries.json"})
+  public void expiredResultsAreReturnedWhileRefreshing() {
+    TestScheduler scheduler = new TestScheduler();
+    CDAClient.Builder builder = createBuilder();
+    builder.queryCache = new QueryCache(1000, 1, TimeUnit.MINUTES, true, scheduler);
+    client = builder.build();
+
+    CDAArray first = client.fetch(CDAEntry.class).all();
+    int requests = server.getRequestCount();
+    scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+
+    assertThat(client.fetch(CDAEntry.class).all()).isSameAs(first);
+    assertThat(client.fetch(CDAEntry.class).all()).isSameAs(first);
+    assertThat(client.queryCache().staleHitCount()).isEqualTo(2);
+    assertThat(server.getRequestCount()).isEqualTo(requests);
+
+    scheduler.triggerActions();
+    assertThat(server.getRequestCount()).isEqualTo(requests + 1);
+
+    CDAArray refreshed = client.fetch(CDAEntry.class).all();
+    assertThat(refreshed).isNotSameAs(first);
+    assertThat(client.fetch(CDAEntry.class).all()).isSameAs(refreshed);
+    assertThat(client.queryCache().staleHitCount()).isEqualTo(2);
+  }
+
+  @Test @Enqueue(defaults = {}, complex = {
+      @EnqueueResponse(fileName = "demo/locales.json"),
+      @EnqueueResponse(fileName = "demo/content_types.json"),
+      @EnqueueResponse(fileName = "demo/entries.json"),
+      @EnqueueResponse(fileName = "errors/not_found.json", code = 500)
+  })
+  public void failingRefreshKeepsExpiredResult() {
+    TestScheduler scheduler = new TestScheduler();
+    CDAClient.Builder builder = createBuilder();
+    builder.queryCache = new QueryCache(1000, 1, TimeUnit.MINUTES, true, scheduler);
+    client = builder.build();
+
+    CDAArray first = client.fetch(CDAEntry.class).all();
+    scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+    assertThat(client.fetch(CDAEntry.class).all()).isSameAs(first);
+    scheduler.triggerActions();
+
+    assertThat(client.fetch(CDAEntry.class).all()).isSameAs(first);
+    assertThat(client.queryCache().staleHitCount()).isEqualTo(2);
+  }
+
+  @Test @Enqueue({"demo/entries.json", "demo/entries.json", "demo/entries.json"})
+  public void leastRecentlyUsedResultsAreEvicted() {
+    client = createBuilder().setQueryCache(20, 0, TimeUnit.SECONDS).build();
+
+    CDAArray first = client.fetch(CDAEntry.class).where("skip", "0").all();
+    long weight = client.queryCache().weight();
+    assertThat(weight).isGreaterThan(10L);
+
+    client.fetch(CDAEntry.class).where("skip", "1").all();
+    assertThat(client.queryCache().weight()).isEqualTo(weight);
+
+    assertThat(client.fetch(CDAEntry.class).where("skip", "0").all()).isNotSameAs(first);
+  }
+
+  @Test @Enqueue({
+      "demo/entries.json",
+      "demo/locales.json", "demo/content_types.json",
+      "demo/sync_initial_p1.json", "demo/sync_initial_p2.json",
+      "demo/locales.json", "demo/content_types.json",
+      "demo/sync_update_p1.json", "demo/sync_update_p2.json",
+      "demo/entries.json"
+  })
+  public void deltaSyncsInvalidateAffectedResults() {
+    client = createBuilder().setQueryCache(1000, 0, TimeUnit.SECONDS).build();
+
+    CDAArray first = client.fetch(CDAEntry.class).all();
+    SynchronizedSpace space = client.sync().observe().blockingFirst();
+    assertThat(client.fetch(CDAEntry.class).all()).isSameAs(first);
+
+    client.sync(space).observe().blockingFirst();
+    assertThat(client.queryCache().weight()).isEqualTo(0);
+    assertThat(client.fetch(CDAEntry.class).all()).isNotSameAs(first);
+  }
+
+  @Test @Enqueue({"demo/entries.json", "demo/entries.json"})
+  public void invalidatingResourceDropsResultsContainingIt() {
+    client = createBuilder().setQueryCache(1000, 0, TimeUnit.SECONDS).build();
+
+    CDAArray first = client.fetch(CDAEntry.class).all();
+    client.queryCache().invalidate("not-contained");
+    assertThat(client.fetch(CDAEntry.class).all()).isSameAs(first);
+
+    client.queryCache().invalidate("nyancat");
+    assertThat(client.fetch(CDAEntry.class).all()).isNotSameAs(first);
+  }
+
+  @Test
+  public void cacheIsDisabledByDefault() {
+    assertThat(client.queryCache()).isNull();
+  }
+}
@@ -0,0 +1,76 @@
+package com.contentful.java.cda;
+
+import com.contentful.java.cda.interceptor.RateLimitInterceptor;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+public class RateLimitTest extends BaseTest {
+  @Test
+  public void rejectedRequestsAreRetriedAfterReset() throws IOException {
+    client = createBuilder().setRateLimit(100, 3).build();
+
+    server.enqueue(tooManyRequests());
+    server.enqueue(space());
+    assertThat(client.fetchSpace().name()).isEqualTo("Contentful Example API");
+
+    assertThat(server.getRequestCount()).isEqualTo(2);
+    assertThat(client.rateLimiter().retryCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void exhaustedRetriesThrow() {
+    client = createBuilder().setRateLimit(100, 1).build();
+
+    server.enqueue(tooManyRequests());
+    server.enqueue(tooManyRequests());
+    try {
+      client.fetchSpace();
+      fail("Expected the rate limit to be reported.");
+    } catch (CDAHttpException e) {
+      assertThat(e.responseCode()).isEqualTo(429);
+    }
+    assertThat(server.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void requestsArePacedByReportedLimit() throws IOException {
+    client = createBuilder().setRateLimit(100, 0).build();
+    final RateLimitInterceptor rateLimiter = client.rateLimiter();
+
+    server.enqueue(space()
+        .setHeader("X-Contentful-RateLimit-Second-Limit", "10")
+        .setHeader("X-Contentful-RateLimit-Second-Remaining", "0"));
+    server.enqueue(space());
+    client.fetchSpace();
+    assertThat(rateLimiter.requestsPerSecond()).isEqualTo(10.0);
+
+    final long start = System.nanoTime();
+    client.fetchSpace();
+    assertThat(System.nanoTime() - start).isAtLeast(TimeUnit.MILLISECONDS.toNanos(50));
+    assertThat(rateLimiter.throttledCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void rateLimiterIsDisabledByDefault() {
+    assertThat(client.rateLimiter()).isNull();
+  }
+
+  private MockResponse tooManyRequests() {
+    return new MockResponse()
+        .setResponseCode(429)
+        .setHeader("X-Contentful-RateLimit-Reset", "0")
+        .setBody("{}");
+  }
+
+  private MockResponse space() throws IOException {
+    return new MockResponse().setBody(readResource("demo/space.json"));
+  }
+}
@@ -8,11 +8,17 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import retrofit2.Response;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -42,12 +48,142 @@ public class ResourceFactoryUnitTest {
       inputArray.items().add(createCdaEntry(String.format("%03d", i)));
     }
 
+    when(cache.fieldPlan(any(CDAContentType.class))).thenReturn(FieldPlan.EMPTY);
+
     final Response<CDAArray> inputArrayResponse = Response.success(inputArray);
     final CDAArray outputArray = ResourceFactory.array(inputArrayResponse, client);
 
     assertThat(outputArray.entries().values()).containsAllIn(inputArray.items);
   }
 
+  @Test
+  public void testDeserializeResourcesRegardlessOfMemberOrder() {
+    final String json = "{\"sys\":{\"type\":\"Array\"},\"items\":["
+        + "{\"fields\":{\"name\":\"before\"},\"sys\":{\"id\":\"a\",\"type\":\"Entry\"}},"
+        + "{\"sys\":{\"id\":\"b\",\"type\":\"Entry\"},\"fields\":{\"name\":\"after\"}},"
+        + "{\"sys\":{\"id\":\"c\",\"type\":\"Asset\"}},"
+        + "null]}";
+
+    final CDAArray array = ResourceFactory.GSON.fromJson(json, CDAArray.class);
+
+    assertThat(array.items()).hasSize(4);
+    assertThat(((CDAEntry) array.items().get(0)).fields).containsEntry("name", "before");
+    assertThat(((CDAEntry) array.items().get(1)).fields).containsEntry("name", "after");
+    assertThat(((CDAAsset) array.items().get(2)).fields).isEmpty();
+    assertThat(array.items().get(3)).isNull();
+  }
+
+  @Test
+  public void testFieldPlanListsOnlyFieldsToBeProcessed() {
+    final CDAContentType contentType = new CDAContentType();
+    contentType.fields = new ArrayList<>();
+    contentType.fields.add(createField("title", "Symbol", null, null));
+    contentType.fields.add(createField("parent", "Link", "Entry", null));
+    contentType.fields.add(createField("images", "Array", null, "Asset"));
+    contentType.fields.add(createField("body", "RichText", null, null));
+
+    final FieldPlan plan = FieldPlan.compile(contentType);
+
+    assertThat(plan.links).hasLength(1);
+    assertThat(plan.links[0].id).isEqualTo("parent");
+    assertThat(plan.links[0].linkType).isEqualTo(CDAType.ENTRY);
+    assertThat(plan.linkArrays).hasLength(1);
+    assertThat(plan.linkArrays[0].id).isEqualTo("images");
+    assertThat(plan.linkArrays[0].linkType).isEqualTo(CDAType.ASSET);
+    assertThat(plan.richTextFields).hasSize(1);
+    assertThat(plan.richTextFields.get(0).id()).isEqualTo("body");
+  }
+
+  @Test
+  public void testFieldPlanOfTypeWithoutLinksIsEmpty() {
+    final CDAContentType contentType = new CDAContentType();
+    contentType.fields = new ArrayList<>();
+    contentType.fields.add(createField("title", "Symbol", null, null));
+
+    assertThat(FieldPlan.compile(contentType)).isSameAs(FieldPlan.EMPTY);
+    assertThat(FieldPlan.compile(null)).isSameAs(FieldPlan.EMPTY);
+  }
+
+  @Test
+  public void testResolveLargeArraysInParallel() {
+    final CDAContentType contentType = new CDAContentType();
+    contentType.attrs = new HashMap<>();
+    contentType.attrs.put("id", "node");
+    contentType.fields = new ArrayList<>();
+    contentType.fields.add(createField("next", "Link", "Entry", null));
+
+    final Cache realCache = new Cache();
+    realCache.setTypes(new HashMap<String, CDAContentType>());
+    realCache.putType(contentType);
+
+    final AtomicInteger tasks = new AtomicInteger();
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    final CDAClient parallelClient = new CDAClient(
+        realCache,
+        mock(Executor.class),
+        mock(CDAService.class),
+        CDAClient.builder()
+            .setSpace("space")
+            .setParallelResolution(100, runnable -> {
+              tasks.incrementAndGet();
+              executor.execute(runnable);
+            }));
+
+    final CDAArray array = new CDAArray();
+    array.assets = new HashMap<>();
+    array.entries = new LinkedHashMap<>();
+    final int count = 1000;
+    for (int i = 0; i < count; ++i) {
+      final CDAEntry entry = createCdaEntry(String.valueOf(i));
+      entry.setContentType(contentType);
+      entry.fields.put("next", linkTo(String.valueOf((i + 1) % count)));
+      array.entries.put(entry.id(), entry);
+    }
+
+    try {
+      ResourceFactory.processEntries(array, parallelClient, true);
+    } finally {
+      executor.shutdown();
+    }
+
+    if (Runtime.getRuntime().availableProcessors() > 1) {
+      assertThat(tasks.get()).isGreaterThan(0);
+    }
+    for (int i = 0; i < count; ++i) {
+      final CDAEntry entry = array.entries.get(String.valueOf(i));
+      final CDAEntry next = entry.getField("en-US", "next");
+      assertThat(next).isSameAs(array.entries.get(String.valueOf((i + 1) % count)));
+      assertThat(entry.rawFields().get("next")).isEqualTo(linkTo(next.id()));
+    }
+  }
+
+  private Map<String, Object> linkTo(String id) {
+    final Map<String, Object> sys = new HashMap<>();
+    sys.put("type", "Link");
+    sys.put("linkType", "Entry");
+    sys.put("id", id);
+
+    final Map<String, Object> link = new HashMap<>();
+    link.put("sys", sys);
+
+    final Map<String, Object> localized = new HashMap<>();
+    localized.put("en-US", link);
+    return localized;
+  }
+
+  private CDAField createField(String id, String type, String linkType, String itemsLinkType) {
+    final CDAField field = new CDAField();
+    field.id = id;
+    field.type = type;
+    field.linkType = linkType;
+    field.items = new HashMap<>();
+    if (itemsLinkType != null) {
+      field.items.put("type", "Link");
+      field.items.put("linkType", itemsLinkType);
+    }
+    return field;
+  }
+
   private CDAEntry createCdaEntry(String id) {
     final CDAEntry entry = new CDAEntry();
     entry.fields = new HashMap<>();
@@ -0,0 +1,121 @@
+package com.contentful.java.cda;
+
+import com.contentful.java.cda.interceptor.ResponseCacheInterceptor;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.Charset.defaultCharset;
+import static org.apache.commons.io.FileUtils.readFileToString;
+
+public class ResponseCacheTest extends BaseTest {
+  @Test
+  public void notModifiedResponsesAreServedFromCache() throws Exception {
+    client = createBuilder().setResponseCache(1024 * 1024).build();
+    final ResponseCacheInterceptor cache = client.responseCache();
+    assertThat(cache).isNotNull();
+
+    server.enqueue(space().setHeader("ETag", "\"v1\""));
+    assertThat(client.fetchSpace().name()).isEqualTo("Contentful Example API");
+    assertThat(server.takeRequest().getHeader("If-None-Match")).isNull();
+    assertThat(cache.missCount()).isEqualTo(1);
+    assertThat(cache.size()).isGreaterThan(0L);
+
+    server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+    assertThat(client.fetchSpace().name()).isEqualTo("Contentful Example API");
+    assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v1\"");
+    assertThat(cache.hitCount()).isEqualTo(1);
+
+    server.enqueue(space());
+    client.fetchSpace();
+    assertThat(server.takeRequest().getHeader("If-None-Match")).isEqualTo("\"v1\"");
+    assertThat(cache.missCount()).isEqualTo(2);
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void responsesLargerThanCacheAreNotKept() throws Exception {
+    client = createBuilder().setResponseCache(16).build();
+
+    server.enqueue(space().setHeader("ETag", "\"v1\""));
+    server.enqueue(space().setHeader("ETag", "\"v1\""));
+    client.fetchSpace();
+    client.fetchSpace();
+
+    server.takeRequest();
+    final RecordedRequest second = server.takeRequest();
+    assertThat(second.getHeader("If-None-Match")).isNull();
+    assertThat(client.responseCache().size()).isEqualTo(0);
+    assertThat(client.responseCache().missCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void chunkedResponsesLargerThanCacheDoNotEvictOthers() throws Exception {
+    client = createBuilder().setResponseCache(400).build();
+    final ResponseCacheInterceptor cache = client.responseCache();
+
+    server.enqueue(space().setHeader("ETag", "\"v1\""));
+    client.fetchSpace();
+    final long cached = cache.size();
+    assertThat(cached).isGreaterThan(0L);
+
+    final String locales = readResource("demo/locales.json");
+    server.enqueue(new MockResponse()
+        .setResponseCode(200)
+        .setHeader("ETag", "\"v2\"")
+        .setChunkedBody(locales, 64));
+    server.enqueue(new MockResponse().setResponseCode(200)
+        .setBody(readResource("demo/content_types.json")));
+    server.enqueue(new MockResponse().setResponseCode(200).setBody(locales));
+    assertThat(client.fetch(CDALocale.class).all().items()).isNotEmpty();
+
+    assertThat(cache.size()).isEqualTo(cached);
+    server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+    client.fetchSpace();
+    assertThat(cache.hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void chunkedResponsesLargerThanCacheAreStreamedThrough() throws Exception {
+    final StringBuilder large = new StringBuilder();
+    while (large.length() < 1024 * 1024) {
+      large.append("0123456789abcdef");
+    }
+    server.enqueue(new MockResponse()
+        .setResponseCode(200)
+        .setHeader("ETag", "\"v1\"")
+        .setChunkedBody(large.toString(), 4096));
+
+    final ResponseCacheInterceptor cache = new ResponseCacheInterceptor(1024);
+    final OkHttpClient http = new OkHttpClient.Builder().addInterceptor(cache).build();
+    final Response response = http.newCall(new Request.Builder().url(server.url("/")).build())
+        .execute();
+    try {
+      // only about as much as fits into the cache got read before returning
+      assertThat(response.body().source().getBuffer().size()).isLessThan(64L * 1024);
+      assertThat(response.body().string()).isEqualTo(large.toString());
+    } finally {
+      response.close();
+    }
+    assertThat(cache.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void cacheIsDisabledByDefault() {
+    assertThat(client.responseCache()).isNull();
+  }
+
+  private MockResponse space() throws IOException {
+    final File file = new File(getClass().getClassLoader().getResource("demo/space.json").getFile());
+    return new MockResponse().setResponseCode(200).setBody(readFileToString(file, defaultCharset()));
+  }
+}
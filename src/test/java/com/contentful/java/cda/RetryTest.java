@@ -0,0 +1,147 @@
+package com.contentful.java.cda;
+
+import com.contentful.java.cda.interceptor.RetryInterceptor;
+import com.contentful.java.cda.interceptor.RetryPolicy;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+public class RetryTest extends BaseTest {
+  @Test
+  public void transientFailuresAreRetried() throws IOException {
+    client = createBuilder().setRetryPolicy(fastPolicy(3)).build();
+
+    server.enqueue(new MockResponse().setResponseCode(503).setBody("{}"));
+    server.enqueue(new MockResponse().setResponseCode(429).setBody("{}"));
+    server.enqueue(space());
+    assertThat(client.fetchSpace().name()).isEqualTo("Contentful Example API");
+
+    final RetryInterceptor retries = client.retries();
+    assertThat(server.getRequestCount()).isEqualTo(3);
+    assertThat(retries.retryCount()).isEqualTo(2);
+    assertThat(retries.recoveredCount()).isEqualTo(1);
+    assertThat(retries.exhaustedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void lastFailureIsThrownOnceAttemptsAreExhausted() {
+    client = createBuilder().setRetryPolicy(fastPolicy(2)).build();
+
+    server.enqueue(new MockResponse().setResponseCode(500).setBody("{}"));
+    server.enqueue(new MockResponse().setResponseCode(502).setBody("{}"));
+    try {
+      client.fetchSpace();
+      fail("Expected the last failure to be thrown.");
+    } catch (CDAHttpException e) {
+      assertThat(e.responseCode()).isEqualTo(502);
+    }
+    assertThat(server.getRequestCount()).isEqualTo(2);
+    assertThat(client.retries().exhaustedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void otherFailuresAreNotRetried() {
+    client = createBuilder().setRetryPolicy(fastPolicy(3)).build();
+
+    server.enqueue(new MockResponse().setResponseCode(404).setBody("{}"));
+    try {
+      client.fetchSpace();
+      fail("Expected the failure to be thrown.");
+    } catch (CDAHttpException e) {
+      assertThat(e.responseCode()).isEqualTo(404);
+    }
+    assertThat(server.getRequestCount()).isEqualTo(1);
+    assertThat(client.retries().retryCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void canceledCallsAreNotRetried() {
+    final RetryInterceptor retries = new RetryInterceptor(fastPolicy(3));
+    final AtomicInteger attempts = new AtomicInteger();
+    final OkHttpClient httpClient = new OkHttpClient.Builder()
+        .addInterceptor(retries)
+        .addInterceptor(chain -> {
+          attempts.incrementAndGet();
+          chain.call().cancel();
+          throw new IOException("Canceled");
+        })
+        .build();
+
+    try {
+      httpClient.newCall(new Request.Builder().url(server.url("/")).build()).execute();
+      fail("Expected the call to be canceled.");
+    } catch (IOException e) {
+      assertThat(e).hasMessageThat().isEqualTo("Canceled");
+    }
+    assertThat(attempts.get()).isEqualTo(1);
+    assertThat(retries.retryCount()).isEqualTo(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void policyRequiresOneAttempt() {
+    RetryPolicy.builder().setMaxAttempts(0);
+  }
+
+  @Test
+  public void rateLimitsAreOnlyRetriedByTheRateLimiter() throws IOException {
+    client = createBuilder()
+        .setRetryPolicy(fastPolicy(3))
+        .setRateLimit(100, 1)
+        .build();
+    assertThat(client.retries().policy().retryableStatusCodes()).doesNotContain(429);
+
+    for (int i = 0; i < 2; ++i) {
+      server.enqueue(new MockResponse()
+          .setResponseCode(429)
+          .setHeader("X-Contentful-RateLimit-Reset", "0")
+          .setBody("{}"));
+    }
+    server.enqueue(space());
+    try {
+      client.fetchSpace();
+      fail("Expected the rate limit to be reported.");
+    } catch (CDAHttpException e) {
+      assertThat(e.responseCode()).isEqualTo(429);
+    }
+    assertThat(server.getRequestCount()).isEqualTo(2);
+    assertThat(client.retries().retryCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void customCallFactoriesOnlyRetryIfBuiltByTheClientBuilder() {
+    final CDAClient.Builder builder = createBuilder().setRetryPolicy(fastPolicy(3));
+    assertThat(builder.setCallFactory(new OkHttpClient()).build().retries()).isNull();
+
+    final OkHttpClient factory = builder.defaultCallFactoryBuilder().build();
+    final CDAClient custom = builder.setCallFactory(factory).build();
+    assertThat(custom.retries()).isNotNull();
+    assertThat(factory.interceptors()).contains(custom.retries());
+  }
+
+  @Test
+  public void retryingIsDisabledByDefault() {
+    assertThat(client.retries()).isNull();
+  }
+
+  private RetryPolicy fastPolicy(int attempts) {
+    return RetryPolicy.builder()
+        .setMaxAttempts(attempts)
+        .setBackoff(1, 10, 2, TimeUnit.MILLISECONDS)
+        .setJitter(1)
+        .build();
+  }
+
+  private MockResponse space() throws IOException {
+    return new MockResponse().setBody(readResource("demo/space.json"));
+  }
+}
@@ -0,0 +1,75 @@
+package com.contentful.java.cda;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.rxjava3.core.Flowable;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SingleFlightTest {
+  @Test public void concurrentSubscribersShareOneRequest() throws Exception {
+    final SingleFlight<String> flights = new SingleFlight<>();
+    final AtomicInteger requests = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    final Flowable<Integer> request = Flowable.fromCallable(() -> {
+      release.await();
+      return requests.incrementAndGet();
+    });
+
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    final List<Future<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 8; ++i) {
+      results.add(executor.submit(() -> flights.run("key", request).blockingFirst()));
+    }
+    while (!flights.isInFlight("key")) {
+      Thread.sleep(1);
+    }
+    // give all other subscribers the chance to join the request in flight
+    Thread.sleep(100);
+    release.countDown();
+
+    for (Future<Integer> result : results) {
+      assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+    }
+    executor.shutdown();
+
+    assertThat(requests.get()).isEqualTo(1);
+    assertThat(flights.isInFlight("key")).isFalse();
+  }
+
+  @Test public void finishedRequestIsNotShared() {
+    final SingleFlight<String> flights = new SingleFlight<>();
+    final AtomicInteger requests = new AtomicInteger();
+    final Flowable<Integer> request = Flowable.fromCallable(requests::incrementAndGet);
+
+    assertThat(flights.run("key", request).blockingFirst()).isEqualTo(1);
+    assertThat(flights.run("key", request).blockingFirst()).isEqualTo(2);
+  }
+
+  @Test public void failedRequestIsNotShared() {
+    final SingleFlight<String> flights = new SingleFlight<>();
+    final AtomicInteger requests = new AtomicInteger();
+    final Flowable<Integer> failing = Flowable.fromCallable(() -> {
+      requests.incrementAndGet();
+      throw new IllegalStateException("failed");
+    });
+
+    for (int i = 0; i < 2; ++i) {
+      try {
+        flights.run("key", failing).blockingFirst();
+      } catch (IllegalStateException e) {
+        assertThat(e).hasMessageThat().isEqualTo("failed");
+      }
+    }
+    assertThat(requests.get()).isEqualTo(2);
+  }
+}
@@ -2,19 +2,35 @@ package com.contentful.java.cda;
 
 import com.contentful.java.cda.lib.Enqueue;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
 
 import static com.contentful.java.cda.SyncType.onlyDeletedEntries;
 import static com.contentful.java.cda.SyncType.onlyEntriesOfType;
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
 public class SyncTest extends BaseTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Test @Enqueue({
           "demo/sync_initial_p1.json", "demo/sync_initial_p2.json",
           "demo/locales.json", "demo/content_types.json",
@@ -28,6 +44,290 @@ public class SyncTest extends BaseTest {
     assertUpdate(second);
   }
 
+  @Test @Enqueue({
+          "demo/sync_initial_p1.json", "demo/sync_initial_p2.json",
+          "demo/locales.json", "demo/content_types.json",
+          "demo/sync_update_p1.json", "demo/sync_update_p2.json"
+  })
+  public void deltaSyncKeepsPreviousMapsAndRelinksDependents() {
+    SynchronizedSpace first = client.sync().observe().blockingFirst();
+    CDAEntry oldHappyCat = first.entries().get("happycat");
+    CDAEntry oldNyanCat = first.entries().get("nyancat");
+    int items = first.items().size();
+    assertThat(oldHappyCat.<CDAEntry>getField("bestFriend")).isSameAs(oldNyanCat);
+
+    SynchronizedSpace second = client.sync(first).observe().blockingFirst();
+    assertThat(second.entries()).isNotSameAs(first.entries());
+    assertThat(second.assets()).isNotSameAs(first.assets());
+
+    CDAEntry nyanCat = second.entries().get("nyancat");
+    CDAEntry happyCat = second.entries().get("happycat");
+    assertThat(nyanCat).isNotSameAs(oldNyanCat);
+    assertThat(happyCat).isSameAs(oldHappyCat);
+    assertThat(happyCat.<CDAEntry>getField("bestFriend")).isSameAs(nyanCat);
+    assertThat(happyCat.<CDAAsset>getField("image")).isSameAs(second.assets().get("happycat"));
+
+    assertThat(first.items()).hasSize(items);
+    assertThat(first.entries().get("nyancat")).isSameAs(oldNyanCat);
+  }
+
+  @Test @Enqueue({"demo/sync_initial_p1.json", "demo/sync_initial_p2.json"})
+  public void failedDeltaSyncKeepsPreviousSpace() throws IOException {
+    SynchronizedSpace first = client.sync().observe().blockingFirst();
+    CDAEntry happyCat = first.entries().get("happycat");
+    CDAEntry nyanCat = first.entries().get("nyancat");
+    int items = first.items().size();
+    Set<String> linking = first.linkIndex().entriesLinkingTo("nyancat");
+
+    // without the content type of the synced cats, fetching it fails after merging
+    server.enqueue(new MockResponse().setBody(readResource("demo/locales.json")));
+    server.enqueue(new MockResponse().setBody("{\"sys\":{\"type\":\"Array\"},\"items\":[]}"));
+    server.enqueue(new MockResponse().setBody(readResource("demo/sync_update_p1.json")));
+    server.enqueue(new MockResponse().setBody(readResource("demo/sync_update_p2.json")));
+    server.enqueue(new MockResponse().setResponseCode(404));
+    try {
+      client.sync(first).observe().blockingFirst();
+      fail("Fetching the missing content type should fail.");
+    } catch (CDAHttpException e) {
+      assertThat(e.responseCode()).isEqualTo(404);
+    }
+
+    assertThat(first.items()).hasSize(items);
+    assertThat(first.entries().get("happycat")).isSameAs(happyCat);
+    assertThat(first.entries().get("nyancat")).isSameAs(nyanCat);
+    assertThat(first.entries()).doesNotContainKey("supercat");
+    assertThat(happyCat.<CDAEntry>getField("bestFriend")).isSameAs(nyanCat);
+    assertThat(first.linkIndex().entriesLinkingTo("nyancat")).isEqualTo(linking);
+  }
+
+  @Test @Enqueue({
+          "demo/sync_initial_p1.json", "demo/sync_initial_p2.json",
+          "demo/locales.json", "demo/content_types.json",
+          "demo/sync_update_p1.json", "demo/sync_update_p2.json"
+  })
+  public void syncResumesFromStoredSpace() throws IOException {
+    File file = temporaryFolder.newFile();
+    new FileSyncStore(file).save(client.sync().observe().blockingFirst());
+
+    SynchronizedSpace loaded = new FileSyncStore(file).load();
+    assertInitial(loaded);
+    CDAEntry happyCat = loaded.entries().get("happycat");
+    assertThat(happyCat.<CDAEntry>getField("bestFriend"))
+        .isSameAs(loaded.entries().get("nyancat"));
+    assertThat(happyCat.<CDAAsset>getField("image")).isSameAs(loaded.assets().get("happycat"));
+
+    assertUpdate(client.sync(loaded).observe().blockingFirst());
+  }
+
+  @Test @Enqueue
+  public void loadingStoredSpaceOnlyReadsResourcesAccessed() throws IOException {
+    final int count = 5000;
+    final StringBuilder items = new StringBuilder();
+    for (int i = 0; i < count; ++i) {
+      if (i > 0) {
+        items.append(',');
+      }
+      items.append("{\"sys\":{\"type\":\"Entry\",\"id\":\"cat-").append(i).append('"')
+          .append(",\"contentType\":{\"sys\":{\"type\":\"Link\",\"linkType\":")
+          .append("\"ContentType\",\"id\":\"cat\"}}},\"fields\":{\"name\":{\"en-US\":\"")
+          .append(i).append("\"}");
+      if (i + 1 < count) {
+        items.append(",\"bestFriend\":{\"en-US\":{\"sys\":{\"type\":\"Link\",")
+            .append("\"linkType\":\"Entry\",\"id\":\"cat-").append(i + 1).append("\"}}}");
+      }
+      items.append("}}");
+    }
+    server.enqueue(new MockResponse().setResponseCode(200).setBody(
+        "{\"sys\":{\"type\":\"Array\"},\"items\":[" + items + "],"
+            + "\"nextSyncUrl\":\"https://cdn.contentful.com/spaces/cfexampleapi/sync"
+            + "?sync_token=bar\"}"));
+
+    File file = temporaryFolder.newFile();
+    new FileSyncStore(file).save(client.sync().observe().blockingFirst());
+    SynchronizedSpace loaded = new FileSyncStore(file).load();
+
+    assertThat(FileSyncStore.readCount(loaded)).isEqualTo(0);
+    CDAEntry cat = loaded.entries().get("cat-0");
+    assertThat(FileSyncStore.readCount(loaded)).isEqualTo(1);
+
+    for (int i = 1; i < count; ++i) {
+      cat = cat.getField("bestFriend");
+      assertThat(cat.<String>getField("name")).isEqualTo(String.valueOf(i));
+    }
+    assertThat(cat.<CDAEntry>getField("bestFriend")).isNull();
+    assertThat(FileSyncStore.readCount(loaded)).isEqualTo(count);
+  }
+
+  @Test @Enqueue({
+          "demo/sync_initial_p1.json", "demo/sync_initial_p2.json",
+          "demo/locales.json", "demo/content_types.json",
+          "demo/sync_update_p1.json", "demo/sync_update_p2.json"
+  })
+  public void loadedSpaceCanBeSavedToItsFileAndSerialized() throws Exception {
+    File file = temporaryFolder.newFile();
+    FileSyncStore store = new FileSyncStore(file);
+    store.save(client.sync().observe().blockingFirst());
+
+    SynchronizedSpace loaded = store.load();
+    store.save(loaded);
+    assertInitial(store.load());
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(loaded);
+    out.close();
+    SynchronizedSpace copy = (SynchronizedSpace) new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    assertInitial(copy);
+    assertThat(copy.items()).hasSize(loaded.items().size());
+
+    SynchronizedSpace synced = client.sync(store.load()).observe().blockingFirst();
+    assertUpdate(synced);
+    assertThat(synced.entries().get("happycat").<CDAEntry>getField("bestFriend"))
+        .isSameAs(synced.entries().get("nyancat"));
+  }
+
+  @Test @Enqueue
+  public void deltaSyncOnlyResolvesLinksToChangedResources() throws IOException {
+    final int count = 1000;
+    final StringBuilder items = new StringBuilder(cat("hub", "leaf")).append(',')
+        .append(cat("leaf", null));
+    for (int i = 0; i < count; ++i) {
+      items.append(',').append(cat("cat-" + i, "hub"));
+    }
+    enqueueSyncPage(items.toString());
+    SynchronizedSpace first = client.sync().observe().blockingFirst();
+
+    CDAEntry hub = first.entries().get("hub");
+    List<Map<String, Object>> fields = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      fields.add(first.entries().get("cat-" + i).fields);
+    }
+
+    SynchronizedSpace space = first;
+    for (int sync = 0; sync < 3; ++sync) {
+      server.enqueue(new MockResponse().setBody(readResource("demo/locales.json")));
+      server.enqueue(new MockResponse().setBody(readResource("demo/content_types.json")));
+      enqueueSyncPage(cat("leaf", null));
+      SynchronizedSpace previous = space;
+      CDAEntry previousLeaf = previous.entries().get("leaf");
+      space = client.sync(space).observe().blockingFirst();
+
+      CDAEntry leaf = space.entries().get("leaf");
+      assertThat(leaf).isNotSameAs(previousLeaf);
+      assertThat(previous.entries().get("leaf")).isSameAs(previousLeaf);
+      assertThat(space.entries().get("hub")).isSameAs(hub);
+      assertThat(hub.<CDAEntry>getField("bestFriend")).isSameAs(leaf);
+      assertThat(space.linkIndex().entriesLinkingTo("hub")).hasSize(count);
+      assertThat(space.items()).hasSize(count + 2);
+    }
+
+    // the thousand entries linking to the hub were neither copied nor resolved again
+    for (int i = 0; i < count; ++i) {
+      CDAEntry cat = space.entries().get("cat-" + i);
+      assertThat(cat).isSameAs(first.entries().get("cat-" + i));
+      assertThat(cat.fields).isSameAs(fields.get(i));
+      assertThat(cat.<CDAEntry>getField("bestFriend")).isSameAs(hub);
+    }
+  }
+
+  private static String cat(String id, String bestFriend) {
+    final StringBuilder cat = new StringBuilder("{\"sys\":{\"type\":\"Entry\",\"id\":\"")
+        .append(id).append("\",\"contentType\":{\"sys\":{\"type\":\"Link\",")
+        .append("\"linkType\":\"ContentType\",\"id\":\"cat\"}}},\"fields\":{")
+        .append("\"name\":{\"en-US\":\"").append(id).append("\"}");
+    if (bestFriend != null) {
+      cat.append(",\"bestFriend\":{\"en-US\":{\"sys\":{\"type\":\"Link\",")
+          .append("\"linkType\":\"Entry\",\"id\":\"").append(bestFriend).append("\"}}}");
+    }
+    return cat.append("}}").toString();
+  }
+
+  private void enqueueSyncPage(String items) {
+    server.enqueue(new MockResponse().setResponseCode(200).setBody(
+        "{\"sys\":{\"type\":\"Array\"},\"items\":[" + items + "],"
+            + "\"nextSyncUrl\":\"https://cdn.contentful.com/spaces/cfexampleapi/sync"
+            + "?sync_token=bar\"}"));
+  }
+
+  @Test
+  public void loadingEmptyStoreReturnsNull() throws IOException {
+    File file = new File(temporaryFolder.getRoot(), "missing");
+    assertThat(new FileSyncStore(file).load()).isNull();
+  }
+
+  @Test @Enqueue({"demo/sync_initial_p1.json", "demo/sync_initial_p2.json"})
+  public void syncIndexesLinksBetweenResources() {
+    SynchronizedSpace space = client.sync().observe().blockingFirst();
+
+    LinkIndex index = space.linkIndex();
+    assertThat(index).isNotNull();
+    assertThat(index.entriesLinkingTo("nyancat")).contains("happycat");
+    assertThat(index.entriesLinkingTo("happycat")).contains("happycat");
+    assertThat(index.entriesLinkingTo("nothing-links-here")).isEmpty();
+
+    boolean found = false;
+    for (LinkIndex.Link link : index.linksTo("nyancat")) {
+      if ("happycat".equals(link.entryId())) {
+        assertThat(link.field()).isEqualTo("bestFriend");
+        assertThat(link.locale()).isEqualTo("en-US");
+        assertThat(link.targetId()).isEqualTo("nyancat");
+        found = true;
+      }
+    }
+    assertThat(found).isTrue();
+  }
+
+  @Test @Enqueue({"demo/sync_initial_p1.json", "demo/sync_initial_p2.json"})
+  public void syncPagesAreEmittedOnDemand() {
+    final TestSubscriber<SynchronizedSpace> subscriber = new TestSubscriber<>(1);
+    client.sync().observePages().subscribe(subscriber);
+
+    subscriber.assertValueCount(1);
+    subscriber.assertNotComplete();
+    // at most one page fetched ahead
+    assertThat(server.getRequestCount()).isEqualTo(4);
+
+    final SynchronizedSpace first = subscriber.values().get(0);
+    assertThat(first.items()).hasSize(1);
+    assertThat(first.entries()).hasSize(1);
+    assertThat(first.nextSyncUrl()).isNull();
+    final CDAEntry entry = first.entries().values().iterator().next();
+    assertThat(entry.contentType()).isNotNull();
+    assertThat(entry.rawFields()).isNotNull();
+
+    subscriber.request(1);
+    subscriber.assertValueCount(2);
+    subscriber.assertComplete();
+    assertThat(server.getRequestCount()).isEqualTo(4);
+
+    final SynchronizedSpace last = subscriber.values().get(1);
+    assertThat(last.items()).hasSize(14);
+    assertThat(last.assets()).hasSize(4);
+    assertThat(last.entries()).hasSize(10);
+    assertThat(last.nextSyncUrl()).endsWith("/sync?sync_token=bar");
+  }
+
+  @Test @Enqueue
+  public void syncPagesAreFetchedOneAfterAnother() {
+    final int pages = 20;
+    for (int i = 0; i < pages; ++i) {
+      final String next = i + 1 < pages
+          ? "\"nextPageUrl\":\"https://cdn.contentful.com/spaces/cfexampleapi/sync"
+              + "?sync_token=page" + (i + 1) + "\""
+          : "\"nextSyncUrl\":\"https://cdn.contentful.com/spaces/cfexampleapi/sync"
+              + "?sync_token=bar\"";
+      server.enqueue(new MockResponse().setBody("{\"sys\":{\"type\":\"Array\"},\"items\":["
+          + cat("cat-" + i, null) + "]," + next + "}"));
+    }
+
+    final List<SynchronizedSpace> result =
+        client.sync().observePages().toList().blockingGet();
+    assertThat(result).hasSize(pages);
+    assertThat(result.get(pages - 1).entries()).containsKey("cat-" + (pages - 1));
+    assertThat(result.get(pages - 1).nextSyncUrl()).endsWith("/sync?sync_token=bar");
+  }
+
   private void assertUpdate(SynchronizedSpace space) {
     assertThat(space.nextPageUrl()).isNull();
     assertThat(space.nextSyncUrl()).endsWith("/sync?sync_token=bar");
@@ -4,11 +4,21 @@ import com.contentful.java.cda.TransformQuery.ContentfulEntryModel;
 import com.contentful.java.cda.TransformQuery.ContentfulField;
 import com.contentful.java.cda.TransformQuery.ContentfulSystemField;
 import com.contentful.java.cda.lib.Enqueue;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import org.junit.Test;
 
+import okhttp3.mockwebserver.MockResponse;
+
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -212,4 +222,166 @@ public class TransformedEntriesTest extends BaseTest {
     assertThat(authors.get(0).posts.size()).isEqualTo(2);
     assertThat(((BlogWithoutHints) authors.get(0).posts.get(0)).title).isEqualTo("First Blog Post");
   }
+
+  @ContentfulEntryModel("author")
+  static class AuthorWithWildcard {
+    @ContentfulField
+    String name;
+
+    @ContentfulField
+    List<? extends BlogPost> posts;
+  }
+
+  @Test
+  @Enqueue(defaults = {"customs/locales.json", "customs/content_types.json", "customs/entries.json"})
+  public void canResolveNestedCustomsOfWildcardCollections() {
+    final List<AuthorWithWildcard> authors = new ArrayList<>(
+        client.observeAndTransform(AuthorWithWildcard.class).all().blockingFirst());
+
+    assertThat(authors.size()).isEqualTo(1);
+    assertThat(authors.get(0).posts.size()).isEqualTo(2);
+    assertThat(authors.get(0).posts.get(0).title).isEqualTo("First Blog Post");
+  }
+
+  @ContentfulEntryModel("dog")
+  static class Dog {
+    @ContentfulField
+    String name;
+
+    @ContentfulField
+    CDAAsset image;
+  }
+
+  @Test
+  @Enqueue({"demo/entries.json", "demo/entries.json"})
+  public void transformCacheSharesInstancesOfUnchangedEntries() {
+    client = createBuilder().setTransformCache(10).build();
+
+    final Map<String, Cat> first =
+        catsByName(client.observeAndTransform(Cat.class).all().blockingFirst());
+    final Map<String, Cat> second =
+        catsByName(client.observeAndTransform(Cat.class).all().blockingFirst());
+
+    assertThat(second.get("Garfield")).isSameAs(first.get("Garfield"));
+    // cats being each others best friend are transformed for every result
+    assertThat(second.get("Nyan Cat")).isNotSameAs(first.get("Nyan Cat"));
+    assertThat(second.get("Nyan Cat").mate.mate).isSameAs(second.get("Nyan Cat"));
+    assertThat(client.transformCache().hitCount()).isEqualTo(1);
+    assertThat(client.transformCache().size()).isEqualTo(1);
+  }
+
+  @Test
+  @Enqueue("demo/entries.json")
+  public void transformCacheTransformsChangedEntriesAgain() throws IOException {
+    client = createBuilder().setTransformCache(10).build();
+    server.enqueue(new MockResponse().setBody(withRevision("garfield", 2, 3)));
+
+    final Map<String, Cat> first =
+        catsByName(client.observeAndTransform(Cat.class).all().blockingFirst());
+    final Map<String, Cat> second =
+        catsByName(client.observeAndTransform(Cat.class).all().blockingFirst());
+
+    assertThat(second.get("Garfield")).isNotSameAs(first.get("Garfield"));
+    assertThat(second.get("Garfield").contentfulVersion).isEqualTo(3.0);
+  }
+
+  @Test
+  @Enqueue("demo/entries.json")
+  public void transformCacheTransformsEntriesOfChangedLinksAgain() throws IOException {
+    client = createBuilder().setTransformCache(10).build();
+    // the image asset of jake changes, the entry itself does not
+    server.enqueue(new MockResponse().setBody(withRevision("jake", 2, 3)));
+
+    final Collection<Dog> first = client.observeAndTransform(Dog.class).all().blockingFirst();
+    final Collection<Dog> second = client.observeAndTransform(Dog.class).all().blockingFirst();
+
+    assertThat(dogNamed(second, "Doge")).isSameAs(dogNamed(first, "Doge"));
+    assertThat(dogNamed(second, "Jake")).isNotSameAs(dogNamed(first, "Jake"));
+    assertThat(dogNamed(second, "Jake").image.<Double>getAttribute("revision")).isEqualTo(3.0);
+  }
+
+  @Test
+  @Enqueue
+  public void transformCacheTransformsEntriesOfLinksIncludedLaterAgain() throws IOException {
+    client = createBuilder().setTransformCache(10).build();
+    final String happyCatOnly = onlyItems("happycat");
+    server.enqueue(new MockResponse().setBody(happyCatOnly));
+    server.enqueue(new MockResponse().setBody(happyCatOnly));
+    server.enqueue(new MockResponse().setBody(readResource("demo/entries.json")));
+
+    final Cat first = client.observeAndTransform(Cat.class).all().blockingFirst().iterator().next();
+    final Cat second = client.observeAndTransform(Cat.class).all().blockingFirst().iterator().next();
+    assertThat(first.mate).isNull();
+    assertThat(second).isSameAs(first);
+
+    final Cat included = catsByName(client.observeAndTransform(Cat.class).all().blockingFirst())
+        .get("Happy Cat");
+    assertThat(included).isNotSameAs(first);
+    assertThat(included.mate.name).isEqualTo("Nyan Cat");
+  }
+
+  @Test
+  @Enqueue({"demo/entries.json", "demo/entries.json"})
+  public void transformCacheKeepsInstancesPerSelection() {
+    client = createBuilder().setTransformCache(10).build();
+
+    final Cat all = catsByName(client.observeAndTransform(Cat.class).all().blockingFirst())
+        .get("Garfield");
+    final Cat selected = catsByName(client.observeAndTransform(Cat.class)
+        .select("fields.name").all().blockingFirst()).get("Garfield");
+
+    assertThat(selected).isNotSameAs(all);
+    assertThat(client.transformCache().size()).isEqualTo(2);
+  }
+
+  @Test
+  public void modelBindersAreKeptPerClient() {
+    client.observeAndTransform(Cat.class);
+    final CDAClient other = createClient();
+
+    assertThat(client.modelBinders).containsKey(Cat.class);
+    assertThat(other.modelBinders).isEmpty();
+  }
+
+  @Test
+  public void transformCacheIsDisabledByDefault() {
+    assertThat(client.transformCache()).isNull();
+  }
+
+  private String withRevision(String id, int from, int to) throws IOException {
+    return readResource("demo/entries.json").replaceAll(
+        "(\"id\": \"" + id + "\",\\s*\"revision\": )" + from, "$1" + to);
+  }
+
+  private String onlyItems(String... ids) throws IOException {
+    final JsonObject array =
+        JsonParser.parseString(readResource("demo/entries.json")).getAsJsonObject();
+    final JsonArray items = new JsonArray();
+    for (final JsonElement item : array.getAsJsonArray("items")) {
+      final String id = item.getAsJsonObject().getAsJsonObject("sys").get("id").getAsString();
+      if (Arrays.asList(ids).contains(id)) {
+        items.add(item);
+      }
+    }
+    array.add("items", items);
+    array.addProperty("total", items.size());
+    return array.toString();
+  }
+
+  private static Map<String, Cat> catsByName(Collection<Cat> cats) {
+    final Map<String, Cat> result = new HashMap<>();
+    for (final Cat cat : cats) {
+      result.put(cat.name, cat);
+    }
+    return result;
+  }
+
+  private static Dog dogNamed(Collection<Dog> dogs, String name) {
+    for (final Dog dog : dogs) {
+      if (name.equals(dog.name)) {
+        return dog;
+      }
+    }
+    throw new AssertionError("No dog named " + name + ".");
+  }
 }